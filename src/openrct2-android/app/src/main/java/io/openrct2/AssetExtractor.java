@@ -0,0 +1,290 @@
+package io.openrct2;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Extracts the OpenRCT2 data bundled in the APK assets. The build generates a manifest listing every file with its
+ * size and hash, so only missing or changed files are written, and nothing is read at all once the installed
+ * version has been extracted.
+ */
+class AssetExtractor {
+    private static final String TAG = "AssetExtractor";
+
+    // OpenRCT2 assets live in their own directory within the APK assets, so that we do not attempt to copy files
+    // out of the standard Android asset folders - webkit, etc.
+    static final String ASSET_ROOT = "openrct2";
+    static final String MANIFEST_NAME = "openrct2.manifest";
+
+    // Copy of the manifest that was last extracted, kept next to the extracted files
+    private static final String EXTRACTED_MANIFEST_NAME = ".openrct2.manifest";
+
+    private static final String PREFERENCES_NAME = "assets";
+    private static final String STAMP_KEY = "stamp";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    // Each worker reuses one direct buffer for all of its copies
+    private static final ThreadLocal<ByteBuffer> COPY_BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+        }
+    };
+
+    private final Context _context;
+    private final AssetManager _assets;
+    private final File _dataDir;
+
+    interface ProgressListener {
+        /**
+         * Called on the extracting thread after each file has been written.
+         */
+        void onProgress(int numExtracted, int numTotal);
+    }
+
+    static class ManifestEntry {
+        final String hash;
+        final long size;
+        final String path;
+
+        ManifestEntry(String hash, long size, String path) {
+            this.hash = hash;
+            this.size = size;
+            this.path = path;
+        }
+    }
+
+    AssetExtractor(Context context, File dataDir) {
+        _context = context;
+        _assets = context.getAssets();
+        _dataDir = dataDir;
+    }
+
+    /**
+     * @param listener receives progress while files are extracted, may be null.
+     * @return true if the data directory matches the manifest of the installed APK.
+     */
+    boolean extract(ProgressListener listener) {
+        String stamp = getStamp();
+        SharedPreferences preferences = _context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        if (stamp.equals(preferences.getString(STAMP_KEY, null)) && _dataDir.isDirectory()) {
+            Log.v(TAG, "Assets already extracted for " + stamp);
+            return true;
+        }
+
+        List<ManifestEntry> manifest;
+        try {
+            manifest = readManifest(_assets.open(MANIFEST_NAME));
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to read asset manifest", e);
+            return false;
+        }
+
+        if (!_dataDir.isDirectory() && !_dataDir.mkdirs()) {
+            Log.e(TAG, String.format("Error creating folder '%s'", _dataDir));
+            return false;
+        }
+
+        HashMap<String, String> extractedHashes = new HashMap<>();
+        File extractedManifestFile = new File(_dataDir, EXTRACTED_MANIFEST_NAME);
+        if (extractedManifestFile.isFile()) {
+            try {
+                for (ManifestEntry entry : readManifest(new FileInputStream(extractedManifestFile))) {
+                    extractedHashes.put(entry.path, entry.hash);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Ignoring unreadable " + extractedManifestFile, e);
+            }
+        }
+
+        List<ManifestEntry> pending = new ArrayList<>();
+        HashSet<File> parentDirs = new HashSet<>();
+        for (ManifestEntry entry : manifest) {
+            File extractedFile = new File(_dataDir, entry.path);
+            if (!isExtracted(entry, extractedFile, extractedHashes.get(entry.path))) {
+                pending.add(entry);
+                parentDirs.add(extractedFile.getParentFile());
+            }
+        }
+
+        // Create each directory once up front, rather than checking for it before every file
+        for (File parentDir : parentDirs) {
+            if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+                Log.d(TAG, String.format("Error creating folder '%s'", parentDir));
+            }
+        }
+
+        try {
+            copyAssets(pending, listener);
+            writeManifest(manifest, extractedManifestFile);
+        } catch (IOException e) {
+            Log.e(TAG, "Error extracting files", e);
+            return false;
+        }
+
+        preferences.edit().putString(STAMP_KEY, stamp).apply();
+        Log.v(TAG, String.format("Extracted %d of %d assets for %s", pending.size(), manifest.size(), stamp));
+        return true;
+    }
+
+    private void copyAssets(List<ManifestEntry> entries, ProgressListener listener) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        int numWorkers = Math.min(MAX_WORKERS, entries.size());
+        ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+        try {
+            ExecutorCompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+            for (final ManifestEntry entry : entries) {
+                completion.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        copyAsset(ASSET_ROOT + "/" + entry.path, new File(_dataDir, entry.path));
+                        return null;
+                    }
+                });
+            }
+
+            for (int i = 0; i < entries.size(); i++) {
+                try {
+                    completion.take().get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new IOException(cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while extracting assets");
+                }
+
+                if (listener != null) {
+                    listener.onProgress(i + 1, entries.size());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean isExtracted(ManifestEntry entry, File extractedFile, String extractedHash) {
+        // File.length() is 0 for missing files, so empty files need an extra check
+        return entry.hash.equals(extractedHash)
+            && extractedFile.length() == entry.size
+            && (entry.size != 0 || extractedFile.isFile());
+    }
+
+    private String getStamp() {
+        try {
+            PackageInfo info = _context.getPackageManager().getPackageInfo(_context.getPackageName(), 0);
+            return info.versionCode + "-" + info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "";
+        }
+    }
+
+    private void copyAsset(String srcPath, File extractedFile) throws IOException {
+        copy(_assets.open(srcPath, AssetManager.ACCESS_STREAMING), extractedFile);
+    }
+
+    /**
+     * Writes input to extractedFile and closes input. Does not depend on the AssetManager, so that the benchmarks can
+     * run it on a desktop JVM.
+     */
+    static void copy(InputStream input, File extractedFile) throws IOException {
+        ByteBuffer buffer = COPY_BUFFER.get();
+        try {
+            ReadableByteChannel inputChannel = Channels.newChannel(input);
+            FileChannel outputChannel = new FileOutputStream(extractedFile).getChannel();
+            try {
+                buffer.clear();
+                while (inputChannel.read(buffer) != -1 || buffer.position() != 0) {
+                    buffer.flip();
+                    outputChannel.write(buffer);
+                    buffer.compact();
+                }
+            } finally {
+                outputChannel.close();
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Manifest lines are "hash TAB size TAB path", paths are relative to ASSET_ROOT. Lines starting with # are
+     * comments.
+     */
+    static List<ManifestEntry> readManifest(InputStream input) throws IOException {
+        List<ManifestEntry> entries = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] fields = line.split("\t", 3);
+                if (fields.length != 3) {
+                    throw new IOException("Malformed manifest line: " + line);
+                }
+
+                try {
+                    entries.add(new ManifestEntry(fields[0], Long.parseLong(fields[1]), fields[2]));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed manifest line: " + line, e);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return entries;
+    }
+
+    private static void writeManifest(List<ManifestEntry> entries, File file) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+            StandardCharsets.UTF_8));
+        try {
+            for (ManifestEntry entry : entries) {
+                writer.write(entry.hash + "\t" + entry.size + "\t" + entry.path + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
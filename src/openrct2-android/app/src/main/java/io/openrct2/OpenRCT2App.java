@@ -2,5 +2,14 @@ package io.openrct2;
 
 import android.app.Application;
 
+import org.libsdl.app.StartupTimeline;
+
 public class OpenRCT2App extends Application {
+    @Override
+    public void onCreate() {
+        StartupTimeline.start(this);
+        super.onCreate();
+        // Overlaps loading the game with the system creating the wallpaper service and its surface
+        StartupPipeline.start(this);
+    }
 }
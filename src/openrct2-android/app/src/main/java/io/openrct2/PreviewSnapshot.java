@@ -0,0 +1,164 @@
+package io.openrct2;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.view.PixelCopy;
+import android.view.SurfaceHolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Keeps a compressed still of the running wallpaper in app storage, so that preview engines in the wallpaper picker
+ * can show the park straight away instead of booting the game.
+ *
+ * The still is copied from the game's surface with PixelCopy while the wallpaper is visible, which needs Android 7.0.
+ * Older devices never get a still and keep running the game in previews.
+ */
+class PreviewSnapshot {
+    private static final String TAG = "PreviewSnapshot";
+
+    private static final String FILE_NAME = "preview.jpg";
+    private static final int JPEG_QUALITY = 85;
+    // The still is only shown in small previews, so half the surface size is plenty
+    private static final int DOWNSCALE = 2;
+
+    // Give the park time to load before the first copy
+    private static final long FIRST_CAPTURE_DELAY_MS = 30 * 1000;
+    private static final long CAPTURE_INTERVAL_MS = 5 * 60 * 1000;
+
+    private final File _file;
+    private final Handler _handler = new Handler(Looper.getMainLooper());
+    private HandlerThread _saveThread;
+    private Handler _saveHandler;
+
+    // Decoded still, only touched on the main thread
+    private Bitmap _bitmap;
+    private boolean _capturing;
+
+    private final Runnable _capture = new Runnable() {
+        @Override
+        public void run() {
+            capture();
+            _handler.postDelayed(this, CAPTURE_INTERVAL_MS);
+        }
+    };
+
+    PreviewSnapshot(Context context) {
+        _file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    /**
+     * Copies the game's surface every CAPTURE_INTERVAL_MS until stopCapturing is called.
+     */
+    void startCapturing() {
+        if (_capturing || Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return;
+        }
+        _capturing = true;
+
+        if (_saveThread == null) {
+            _saveThread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+            _saveThread.start();
+            _saveHandler = new Handler(_saveThread.getLooper());
+        }
+        _handler.postDelayed(_capture, FIRST_CAPTURE_DELAY_MS);
+    }
+
+    void stopCapturing() {
+        _capturing = false;
+        _handler.removeCallbacks(_capture);
+    }
+
+    void release() {
+        stopCapturing();
+        if (_saveThread != null) {
+            // Lets a copy in progress finish writing
+            _saveThread.quitSafely();
+            _saveThread = null;
+            _saveHandler = null;
+        }
+    }
+
+    /**
+     * @return the latest still, or null if none has been saved yet.
+     */
+    Bitmap getBitmap() {
+        if (_bitmap == null && _file.exists()) {
+            _bitmap = BitmapFactory.decodeFile(_file.getPath());
+            if (_bitmap == null) {
+                Log.w(TAG, "Unable to decode " + _file);
+            }
+        }
+        return _bitmap;
+    }
+
+    /**
+     * Drops the decoded still, it is decoded again the next time a preview needs it.
+     */
+    void trimMemory() {
+        _bitmap = null;
+    }
+
+    private void capture() {
+        SurfaceHolder holder = SDLActivity.getGameSurfaceHolder();
+        if (holder == null || !holder.getSurface().isValid()) {
+            return;
+        }
+
+        Rect frame = holder.getSurfaceFrame();
+        int width = frame.width() / DOWNSCALE;
+        int height = frame.height() / DOWNSCALE;
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        PixelCopy.request(holder.getSurface(), bitmap, new PixelCopy.OnPixelCopyFinishedListener() {
+            @Override
+            public void onPixelCopyFinished(int result) {
+                // Called on the save thread
+                if (result == PixelCopy.SUCCESS) {
+                    save(bitmap);
+                } else {
+                    Log.w(TAG, "Unable to copy the surface: " + result);
+                }
+                bitmap.recycle();
+            }
+        }, _saveHandler);
+    }
+
+    private void save(Bitmap bitmap) {
+        // Written next to the still and renamed over it, so a preview never decodes half a file
+        File temp = new File(_file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write " + temp, e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(_file)) {
+            Log.w(TAG, "Unable to replace " + _file);
+            temp.delete();
+            return;
+        }
+
+        _handler.post(new Runnable() {
+            @Override
+            public void run() {
+                _bitmap = null;
+            }
+        });
+    }
+}
@@ -0,0 +1,232 @@
+package io.openrct2;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Lowers the frame rate and internal resolution of the wallpaper while the device is hot, in battery saver or low on
+ * battery, so that a wallpaper running all day does not heat up and throttle the whole phone.
+ *
+ * Levels are lowered as soon as conditions get worse, but only raised again one step at a time once conditions have
+ * been better for RAISE_DELAY_MS, so the governor does not oscillate around a threshold.
+ */
+class RenderGovernor {
+    private static final String TAG = "RenderGovernor";
+
+    interface Listener {
+        /**
+         * Called on the main thread whenever the level changes, both scales are between 0 and 1.
+         */
+        void onRenderBudgetChanged(float frameRateScale, float resolutionScale);
+    }
+
+    static final int LEVEL_FULL = 0;
+    static final int LEVEL_REDUCED = 1;
+    static final int LEVEL_LOW = 2;
+    static final int LEVEL_MINIMAL = 3;
+
+    private static final String[] LEVEL_NAMES = {"full", "reduced", "low", "minimal"};
+    private static final float[] FRAME_RATE_SCALES = {1.0f, 0.5f, 0.5f, 0.25f};
+    private static final float[] RESOLUTION_SCALES = {1.0f, 1.0f, 0.75f, 0.5f};
+
+    private static final long RAISE_DELAY_MS = 60 * 1000;
+    private static final long HEADROOM_POLL_INTERVAL_MS = 30 * 1000;
+    private static final int HEADROOM_FORECAST_SECONDS = 30;
+
+    // Thermal headroom is 1.0 at the point the device starts to throttle severely. The thresholds to leave a level
+    // are lower than those to enter it.
+    private static final float HEADROOM_REDUCED_ENTER = 0.85f;
+    private static final float HEADROOM_REDUCED_EXIT = 0.75f;
+    private static final float HEADROOM_LOW_ENTER = 0.95f;
+    private static final float HEADROOM_LOW_EXIT = 0.9f;
+
+    private static final int LOW_BATTERY_PERCENT = 15;
+
+    private final Context _context;
+    private final PowerManager _powerManager;
+    private final Listener _listener;
+    private final Handler _handler = new Handler(Looper.getMainLooper());
+
+    private int _level = LEVEL_FULL;
+    private long _betterSince = -1;
+    private boolean _started;
+
+    // Latest readings
+    private int _thermalStatus;
+    private float _thermalHeadroom = Float.NaN;
+    private boolean _powerSaveMode;
+    private boolean _charging;
+    private int _batteryPercent = 100;
+
+    private final BroadcastReceiver _receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+                readBattery(intent);
+            }
+            _powerSaveMode = _powerManager.isPowerSaveMode();
+            update("power state changed");
+        }
+    };
+
+    private final Runnable _poll = new Runnable() {
+        @Override
+        public void run() {
+            readThermalHeadroom();
+            update("periodic check");
+            _handler.postDelayed(this, HEADROOM_POLL_INTERVAL_MS);
+        }
+    };
+
+    private Object _thermalListener;
+
+    RenderGovernor(Context context, Listener listener) {
+        _context = context;
+        _powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        _listener = listener;
+    }
+
+    void start() {
+        if (_started) {
+            return;
+        }
+        _started = true;
+
+        IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        Intent battery = _context.registerReceiver(_receiver, filter);
+        if (battery != null) {
+            readBattery(battery);
+        }
+        _powerSaveMode = _powerManager.isPowerSaveMode();
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            _thermalStatus = _powerManager.getCurrentThermalStatus();
+            PowerManager.OnThermalStatusChangedListener thermalListener =
+                new PowerManager.OnThermalStatusChangedListener() {
+                    @Override
+                    public void onThermalStatusChanged(int status) {
+                        _thermalStatus = status;
+                        update("thermal status " + status);
+                    }
+                };
+            _powerManager.addThermalStatusListener(thermalListener);
+            _thermalListener = thermalListener;
+        }
+
+        readThermalHeadroom();
+        update("started");
+        _handler.postDelayed(_poll, HEADROOM_POLL_INTERVAL_MS);
+    }
+
+    void stop() {
+        if (!_started) {
+            return;
+        }
+        _started = false;
+
+        _handler.removeCallbacks(_poll);
+        _context.unregisterReceiver(_receiver);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && _thermalListener != null) {
+            _powerManager.removeThermalStatusListener((PowerManager.OnThermalStatusChangedListener) _thermalListener);
+            _thermalListener = null;
+        }
+    }
+
+    int getLevel() {
+        return _level;
+    }
+
+    private void readBattery(Intent battery) {
+        int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        if (level >= 0 && scale > 0) {
+            _batteryPercent = level * 100 / scale;
+        }
+        _charging = battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    }
+
+    private void readThermalHeadroom() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            // NaN when the device does not support forecasts or it is polled too often
+            _thermalHeadroom = _powerManager.getThermalHeadroom(HEADROOM_FORECAST_SECONDS);
+        }
+    }
+
+    /**
+     * The level the current readings call for. Headroom thresholds depend on the current level to add hysteresis.
+     */
+    private int getTargetLevel() {
+        int target = LEVEL_FULL;
+
+        if (_thermalStatus >= PowerManager.THERMAL_STATUS_CRITICAL) {
+            target = LEVEL_MINIMAL;
+        } else if (_thermalStatus >= PowerManager.THERMAL_STATUS_SEVERE) {
+            target = LEVEL_LOW;
+        } else if (_thermalStatus >= PowerManager.THERMAL_STATUS_MODERATE) {
+            target = LEVEL_REDUCED;
+        }
+
+        if (!Float.isNaN(_thermalHeadroom)) {
+            float lowThreshold = _level >= LEVEL_LOW ? HEADROOM_LOW_EXIT : HEADROOM_LOW_ENTER;
+            float reducedThreshold = _level >= LEVEL_REDUCED ? HEADROOM_REDUCED_EXIT : HEADROOM_REDUCED_ENTER;
+            if (_thermalHeadroom >= lowThreshold) {
+                target = Math.max(target, LEVEL_LOW);
+            } else if (_thermalHeadroom >= reducedThreshold) {
+                target = Math.max(target, LEVEL_REDUCED);
+            }
+        }
+
+        if (!_charging) {
+            if (_batteryPercent <= LOW_BATTERY_PERCENT) {
+                target = Math.max(target, LEVEL_LOW);
+            } else if (_powerSaveMode) {
+                target = Math.max(target, LEVEL_REDUCED);
+            }
+        }
+
+        return target;
+    }
+
+    private void update(String reason) {
+        if (!_started) {
+            return;
+        }
+
+        int target = getTargetLevel();
+        long now = SystemClock.elapsedRealtime();
+        int level = _level;
+        if (target > level) {
+            level = target;
+            _betterSince = -1;
+        } else if (target < level) {
+            if (_betterSince < 0) {
+                _betterSince = now;
+            } else if (now - _betterSince >= RAISE_DELAY_MS) {
+                level--;
+                _betterSince = level > target ? now : -1;
+            }
+        } else {
+            _betterSince = -1;
+        }
+
+        if (level == _level) {
+            return;
+        }
+
+        Log.i(TAG, String.format("Render level %s -> %s (%s; thermal %d, headroom %.2f, battery %d%%%s%s)",
+            LEVEL_NAMES[_level], LEVEL_NAMES[level], reason, _thermalStatus, _thermalHeadroom, _batteryPercent,
+            _charging ? ", charging" : "", _powerSaveMode ? ", battery saver" : ""));
+        _level = level;
+        _listener.onRenderBudgetChanged(FRAME_RATE_SCALES[level], RESOLUTION_SCALES[level]);
+    }
+}
@@ -1,31 +1,103 @@
 package io.openrct2;
 
-import android.content.res.AssetManager;
-import android.os.Environment;
+import android.content.ComponentCallbacks2;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import android.view.Display;
+import android.view.MotionEvent;
+import android.view.WindowManager;
 
-import org.apache.commons.io.IOUtils;
-
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import org.libsdl.app.StartupTimeline;
 
 public class SDLActivity extends org.libsdl.app.SDLActivity {
+    // Tiers of nativeTrimMemory, each releases everything the previous one does
+    private static final int TRIM_CACHES = 1;
+    private static final int TRIM_RENDER_TARGETS = 2;
+    private static final int TRIM_CRITICAL = 3;
+
+    private StartupPipeline _startup;
+    private SharedPreferences _settings;
+    private RenderGovernor _governor;
+    private final WallpaperInput _input = new WallpaperInput();
+    private PreviewSnapshot _snapshot;
+    private final Handler _handler = new Handler(Looper.getMainLooper());
+
+    // Preferences only keep weak references to their listeners
+    private final SharedPreferences.OnSharedPreferenceChangeListener _settingsListener =
+        new SharedPreferences.OnSharedPreferenceChangeListener() {
+            @Override
+            public void onSharedPreferenceChanged(SharedPreferences preferences, String key) {
+                if (WallpaperSettings.KEY_FRAME_RATE.equals(key)) {
+                    applyFrameRate();
+                } else if (WallpaperSettings.KEY_RENDER_SCALE.equals(key)) {
+                    onRenderScaleChanged();
+                } else if (WallpaperSettings.KEY_SURFACE_FORMAT.equals(key)) {
+                    onSurfaceFormatChanged();
+                } else if (WallpaperSettings.KEY_HIDDEN_TICK_RATE.equals(key)) {
+                    applyHiddenTickRate();
+                }
+            }
+        };
+
     public float getDefaultScale() {
         return getResources().getDisplayMetrics().density;
     }
 
     @Override
     protected String[] getLibraries() {
-        return new String[]{
-            "c++_shared",
-            "speexdsp",
-            "png16",
-            "SDL2-2.0",
-            "openrct2",
-            "openrct2-ui",
-        };
+        return StartupPipeline.LIBRARIES;
+    }
+
+    @Override
+    public void loadLibraries() {
+        // Loaded in the background by the startup pipeline, see awaitLibraries
+    }
+
+    @Override
+    protected boolean awaitLibraries() {
+        if (_startup.awaitLibraries()) {
+            return true;
+        }
+
+        if (_startup.haveLibrariesFailed()) {
+            mBrokenLibraries = true;
+        } else {
+            // Still loading, start the game once they are rather than blocking the main thread any longer
+            _startup.runWhenLibrariesLoaded(new Runnable() {
+                @Override
+                public void run() {
+                    _handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onLibrariesLoaded();
+                        }
+                    });
+                }
+            });
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean areLibrariesLoaded() {
+        return _startup.areLibrariesLoaded();
+    }
+
+    @Override
+    protected boolean prepareNativeInit() {
+        if (_startup.await()) {
+            return true;
+        }
+
+        Log.w("io.openrct2", "Startup did not finish in the background, preparing the game on the SDL thread");
+        if (!_startup.prepareSynchronously()) {
+            mBrokenLibraries = true;
+            return false;
+        }
+        return true;
     }
 
     @Override
@@ -33,48 +105,169 @@ public class SDLActivity extends org.libsdl.app.SDLActivity {
         return new String[0];
     }
 
+    @Override
+    public void onCreate() {
+        StartupTimeline.begin("SDLActivity.onCreate");
+        // Already started by the application, the libraries and data are still being prepared in the background
+        _startup = StartupPipeline.start(this);
+        super.onCreate();
+
+        _settings = WallpaperSettings.getPreferences(this);
+        _settings.registerOnSharedPreferenceChangeListener(_settingsListener);
+        applyFrameRate();
+        applyHiddenTickRate();
 
-    // TODO Don't copy/enumerate assets on every startup
-    // When building, ensure OpenRCT2 assets are inside their own directory within the APK assets,
-    // so that we do not attempt to copy files out of the standard Android asset folders - webkit, etc.
-    private void copyAssets() {
-        File dataDir = new File(Environment.getExternalStorageDirectory().toString()
-            + File.separator + "openrct2" + File.separator);
+        _governor = new RenderGovernor(this, new RenderGovernor.Listener() {
+            @Override
+            public void onRenderBudgetChanged(final float frameRateScale, final float resolutionScale) {
+                _startup.runWhenLibrariesLoaded(new Runnable() {
+                    @Override
+                    public void run() {
+                        nativeSetRenderBudget(frameRateScale, resolutionScale);
+                    }
+                });
+            }
+        });
+        _governor.start();
 
-        try {
-            copyAsset(getAssets(), "openrct2", dataDir, "");
-        } catch (IOException e) {
-            Log.e("io.openrct2", "Error extracting files", e);
-            return;
+        _snapshot = new PreviewSnapshot(this);
+        StartupTimeline.end();
+    }
+
+    @Override
+    public void onDestroy() {
+        if (_governor != null) {
+            _governor.stop();
         }
+        if (_snapshot != null) {
+            _snapshot.release();
+        }
+        if (_settings != null) {
+            _settings.unregisterOnSharedPreferenceChangeListener(_settingsListener);
+        }
+        super.onDestroy();
+    }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        // Levels are not ordered by severity across running and background processes
+        int tier;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE
+            || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            tier = TRIM_CRITICAL;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+            || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            tier = TRIM_RENDER_TARGETS;
+        } else {
+            tier = TRIM_CACHES;
+        }
+
+        // Being killed loses the park, caches are cheap to build again
+        int numReaders = ZipArchive.trimMemory();
+        _snapshot.trimMemory();
+        Log.i("io.openrct2", "Trimming memory at tier " + tier + " for level " + level + ", closed " + numReaders
+            + " zip readers");
+        if (areLibrariesLoaded()) {
+            nativeTrimMemory(tier);
+        }
     }
 
-    // srcPath cannot be the empty string
-    private void copyAsset(AssetManager assets, String srcPath, File dataDir, String destPath) throws IOException {
-        String[] list = assets.list(srcPath);
+    @Override
+    protected float getRenderScale(int fullWidth, int fullHeight) {
+        return WallpaperSettings.getRenderScale(_settings, fullWidth, fullHeight);
+    }
 
-        if (list.length == 0) {
-            InputStream input = assets.open(srcPath);
-            File extractedFile = new File(dataDir, destPath);
-            File parentFile = extractedFile.getParentFile();
-            if (!parentFile.exists()) {
-                boolean success = parentFile.mkdirs();
-                if (!success) {
-                    Log.d("io.openrct2", String.format("Error creating folder '%s'", parentFile));
-                }
-            }
-            FileOutputStream output = new FileOutputStream(extractedFile);
-            IOUtils.copyLarge(input, output);
-            output.close();
-            input.close();
-            return;
+    @Override
+    protected int getSurfaceFormat() {
+        return WallpaperSettings.getSurfaceFormat(_settings);
+    }
+
+    @Override
+    protected void onWallpaperVisibilityChanged(boolean visible) {
+        // Keep the park running without drawing rather than pausing it, so it does not stand still while hidden
+        // and there is no resume to wait for when shown again
+        nativeSetHidden(!visible);
+
+        if (visible) {
+            _snapshot.startCapturing();
+        } else {
+            _snapshot.stopCapturing();
         }
+    }
+
+    @Override
+    protected Bitmap getPreviewSnapshot() {
+        return _snapshot.getBitmap();
+    }
+
+    @Override
+    protected void onWallpaperOffsetsChanged(float xOffset, float yOffset, float xOffsetStep, float yOffsetStep) {
+        _input.postOffsets(xOffset, yOffset, xOffsetStep, yOffsetStep);
+    }
+
+    @Override
+    protected void onWallpaperTouchEvent(MotionEvent event) {
+        _input.postTouchEvent(event);
+    }
 
-        for (String fileName : list) {
-            // This ternary expression makes sure that this string does not begin with a slash
-            String destination = destPath + (destPath.equals("") ? "" : File.separator) + fileName;
-            copyAsset(assets, srcPath + File.separator + fileName, dataDir, destination);
+    @Override
+    protected void onWallpaperSurfaceSized(int layoutWidth, int layoutHeight, int width, int height) {
+        _input.postSurfaceSize(layoutWidth, layoutHeight, width, height);
+    }
+
+    private void applyFrameRate() {
+        float frameRate = WallpaperSettings.getFrameRate(_settings);
+        if (frameRate == 0) {
+            Display display = ((WindowManager) getSystemService(WINDOW_SERVICE)).getDefaultDisplay();
+            frameRate = display.getRefreshRate();
         }
+
+        Log.v("io.openrct2", "Limiting frame rate to " + frameRate);
+        final float fps = frameRate;
+        _startup.runWhenLibrariesLoaded(new Runnable() {
+            @Override
+            public void run() {
+                nativeSetFrameRateLimit(fps);
+            }
+        });
     }
+
+    private void applyHiddenTickRate() {
+        final float ticksPerSecond = WallpaperSettings.getHiddenTickRate(_settings);
+        _startup.runWhenLibrariesLoaded(new Runnable() {
+            @Override
+            public void run() {
+                nativeSetHiddenTickRate(ticksPerSecond);
+            }
+        });
+    }
+
+    /**
+     * Limits how often the game is drawn, 0 for no limit. The game keeps ticking at its own rate.
+     */
+    private static native void nativeSetFrameRateLimit(float fps);
+
+    /**
+     * Scales the frame rate limit and the resolution the game is drawn at, both between 0 and 1.
+     */
+    private static native void nativeSetRenderBudget(float frameRateScale, float resolutionScale);
+
+    /**
+     * Stops drawing while hidden, the game keeps ticking at the hidden tick rate.
+     */
+    private static native void nativeSetHidden(boolean hidden);
+
+    /**
+     * Sets how many times per second the game ticks while hidden, 0 pauses it. The game normally ticks 40 times a
+     * second.
+     */
+    private static native void nativeSetHiddenTickRate(float ticksPerSecond);
+
+    /**
+     * Releases native memory which is recreated on demand, see the TRIM_ tiers. Zip indices are released right away,
+     * render targets on the game thread once hidden, or straight away at TRIM_CRITICAL.
+     */
+    private static native void nativeTrimMemory(int tier);
 }
@@ -0,0 +1,317 @@
+package io.openrct2;
+
+import android.content.Context;
+import android.os.Environment;
+import android.util.Log;
+
+import org.libsdl.app.StartupTimeline;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gets the game ready to start in the background from Application.onCreate, so that the work overlaps with the
+ * launcher binding the wallpaper and creating its surface. When the first surface arrives the game thread can usually
+ * start straight away.
+ *
+ * The native libraries are loaded and the bundled data is mounted or extracted, then the files the game reads on
+ * startup are read ahead. Native methods may only be called once awaitLibraries has returned true or
+ * runWhenLibrariesLoaded runs them, and the game thread must not be started before await has returned true or
+ * prepareSynchronously has taken over.
+ */
+final class StartupPipeline {
+    private static final String TAG = "StartupPipeline";
+
+    static final String[] LIBRARIES = {
+        "c++_shared",
+        "speexdsp",
+        "png16",
+        "SDL2-2.0",
+        "openrct2",
+        "openrct2-ui",
+    };
+
+    // Longest wait for the whole pipeline before the game thread prepares what is missing itself
+    private static final long AWAIT_TIMEOUT_MS = 30 * 1000;
+
+    // Longest wait for the libraries on the main thread, well below the time after which the system reports an ANR
+    private static final long AWAIT_LIBRARIES_TIMEOUT_MS = 3 * 1000;
+
+    private static StartupPipeline _instance;
+
+    private final Context _context;
+    private final Future<Void> _libraries;
+    private final Future<Void> _assets;
+    private final Future<Void> _preload;
+
+    // Native calls made before the libraries were loaded, run once they are
+    private final List<Runnable> _pendingNativeCalls = new ArrayList<>();
+    private boolean _librariesLoaded;
+
+    // Held while preparing the assets, so that the fallback waits for a stage that is still running
+    private final Object _assetsLock = new Object();
+    private boolean _assetsPrepared;
+
+    // Held while reading ahead, so that the fallback does not start the game while it is still running
+    private final Object _preloadLock = new Object();
+    private boolean _preloadCancelled;
+
+    /**
+     * Starts the pipeline unless it is already running. Called from Application.onCreate.
+     */
+    static synchronized StartupPipeline start(Context context) {
+        if (_instance == null) {
+            _instance = new StartupPipeline(context.getApplicationContext());
+        }
+        return _instance;
+    }
+
+    private StartupPipeline(Context context) {
+        _context = context;
+
+        // Extracting does not need the libraries, so it gets its own thread
+        ExecutorService executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+            private int _numThreads;
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, TAG + "-" + _numThreads++);
+            }
+        });
+        _libraries = executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                loadLibraries();
+                return null;
+            }
+        });
+        _assets = executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (BuildConfig.ASSETS_FROM_APK) {
+                    _libraries.get();
+                }
+                prepareAssets();
+                return null;
+            }
+        });
+        _preload = executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                _libraries.get();
+                _assets.get();
+                synchronized (_preloadLock) {
+                    if (_preloadCancelled) {
+                        return null;
+                    }
+                    StartupTimeline.begin("nativePreload");
+                    try {
+                        nativePreload();
+                    } finally {
+                        StartupTimeline.end();
+                    }
+                }
+                return null;
+            }
+        });
+        executor.shutdown();
+    }
+
+    private synchronized void loadLibraries() {
+        if (areLibrariesLoaded()) {
+            return;
+        }
+
+        for (String lib : LIBRARIES) {
+            StartupTimeline.begin("loadLibrary " + lib);
+            try {
+                loadLibrary(lib);
+            } finally {
+                StartupTimeline.end();
+            }
+        }
+        nativeSetCacheDirectory(_context.getCacheDir().getPath());
+        nativeSetDataDirectory(getDataDirectory().getPath());
+
+        // Held while running, so that calls made from now on cannot overtake the pending ones
+        synchronized (_pendingNativeCalls) {
+            for (Runnable call : _pendingNativeCalls) {
+                call.run();
+            }
+            _pendingNativeCalls.clear();
+            _librariesLoaded = true;
+        }
+    }
+
+    /**
+     * Separate from loadLibraries so that the lifecycle replay can stand in for the libraries.
+     */
+    private static void loadLibrary(String lib) {
+        System.loadLibrary(lib);
+    }
+
+    private void prepareAssets() {
+        synchronized (_assetsLock) {
+            if (_assetsPrepared) {
+                return;
+            }
+
+            if (BuildConfig.ASSETS_FROM_APK) {
+                StartupTimeline.begin("nativeMountAssets");
+                try {
+                    nativeMountAssets(_context.getApplicationInfo().sourceDir,
+                        new File(_context.getCacheDir(), "assets").getPath());
+                } finally {
+                    StartupTimeline.end();
+                }
+            } else {
+                StartupTimeline.begin("copyAssets");
+                try {
+                    copyAssets();
+                } finally {
+                    StartupTimeline.end();
+                }
+            }
+            _assetsPrepared = true;
+        }
+    }
+
+    /**
+     * The directory the game reads its bundled data from, which assets are extracted to or mounted at.
+     */
+    private static File getDataDirectory() {
+        return new File(Environment.getExternalStorageDirectory(), "openrct2");
+    }
+
+    private void copyAssets() {
+        new AssetExtractor(_context, getDataDirectory()).extract(new AssetExtractor.ProgressListener() {
+            @Override
+            public void onProgress(int numExtracted, int numTotal) {
+                if (numExtracted % 100 == 0 || numExtracted == numTotal) {
+                    Log.v(TAG, String.format("Extracted %d/%d assets", numExtracted, numTotal));
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs a native call straight away if the libraries have been loaded, otherwise on the pipeline thread once they
+     * are. Calls are dropped if the libraries cannot be loaded.
+     */
+    void runWhenLibrariesLoaded(Runnable call) {
+        synchronized (_pendingNativeCalls) {
+            if (!_librariesLoaded) {
+                _pendingNativeCalls.add(call);
+                return;
+            }
+        }
+        call.run();
+    }
+
+    boolean areLibrariesLoaded() {
+        synchronized (_pendingNativeCalls) {
+            return _librariesLoaded;
+        }
+    }
+
+    /**
+     * Waits for the libraries to be loaded, at most AWAIT_LIBRARIES_TIMEOUT_MS as this is called on the main thread.
+     *
+     * @return false if they could not be loaded or are still being loaded, see haveLibrariesFailed.
+     */
+    boolean awaitLibraries() {
+        return await(_libraries, "Wait for libraries", AWAIT_LIBRARIES_TIMEOUT_MS);
+    }
+
+    /**
+     * @return true if loading the libraries has finished without loading them.
+     */
+    boolean haveLibrariesFailed() {
+        return _libraries.isDone() && !areLibrariesLoaded();
+    }
+
+    /**
+     * Waits for the whole pipeline, after which the game thread can be started.
+     *
+     * @return false if a stage failed or the pipeline took longer than AWAIT_TIMEOUT_MS, see prepareSynchronously.
+     */
+    boolean await() {
+        // The read ahead waits for the other stages, so it only succeeds if they all have
+        return await(_preload, "Wait for startup", AWAIT_TIMEOUT_MS);
+    }
+
+    /**
+     * Loads the libraries and prepares the assets on the calling thread, for when await returned false. Stages which
+     * already succeeded are not run again, and one that is still running is waited for. The read ahead is cancelled,
+     * or waited for if it has started, the game only starts slower without it.
+     *
+     * @return false if the game cannot be started.
+     */
+    boolean prepareSynchronously() {
+        // The read ahead shares native state with the game, so it must not run alongside it
+        synchronized (_preloadLock) {
+            _preloadCancelled = true;
+        }
+        try {
+            loadLibraries();
+            prepareAssets();
+            return true;
+        } catch (Exception | UnsatisfiedLinkError e) {
+            Log.e(TAG, "Preparing the game failed", e);
+            return false;
+        }
+    }
+
+    private static boolean await(Future<Void> stage, String phase, long timeoutMs) {
+        boolean waiting = !stage.isDone();
+        if (waiting) {
+            StartupTimeline.begin(phase);
+        }
+        try {
+            stage.get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Startup failed", e.getCause());
+            return false;
+        } catch (TimeoutException e) {
+            Log.w(TAG, phase + " timed out after " + timeoutMs + " ms");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (waiting) {
+                StartupTimeline.end();
+            }
+        }
+    }
+
+    /**
+     * Tells native code where to keep the files it can recreate, such as inflated zip entries.
+     */
+    private static native void nativeSetCacheDirectory(String path);
+
+    /**
+     * Sets the directory the game reads its bundled data from, see getDataDirectory.
+     */
+    private static native void nativeSetDataDirectory(String path);
+
+    /**
+     * Makes the native file layer serve the data directory from the assets in the given APK.
+     */
+    private static native void nativeMountAssets(String apkPath, String cachePath);
+
+    /**
+     * Reads ahead the files the game reads on startup, such as the repository caches and the title sequences.
+     */
+    private static native void nativePreload();
+}
@@ -0,0 +1,136 @@
+package io.openrct2;
+
+import android.view.MotionEvent;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mailbox for wallpaper offsets, touch drags and the surface size. The engine posts them on the main thread, and the game thread drains
+ * them once per frame from WallpaperInput.Android.cpp.
+ *
+ * Offsets only keep their latest value and drags are summed, each as a pair of floats packed into an AtomicLong, so
+ * posting never blocks, allocates or calls into native code however many events arrive between two frames.
+ */
+class WallpaperInput {
+    // Layout of the array filled by drain
+    static final int STATE_OFFSET_X = 0;
+    static final int STATE_OFFSET_Y = 1;
+    static final int STATE_DRAG_X = 2;
+    static final int STATE_DRAG_Y = 3;
+    static final int STATE_LAYOUT_WIDTH = 4;
+    static final int STATE_LAYOUT_HEIGHT = 5;
+    static final int STATE_SURFACE_WIDTH = 6;
+    static final int STATE_SURFACE_HEIGHT = 7;
+    static final int STATE_SIZE = 8;
+
+    private static final long NO_DRAG = pack(0, 0);
+
+    private static final AtomicLong OFFSETS = new AtomicLong(pack(Float.NaN, Float.NaN));
+    private static final AtomicLong DRAG = new AtomicLong(NO_DRAG);
+
+    // Layout and surface sizes as four 16-bit fields, 0 until the first surface is sized
+    private static final AtomicLong SIZES = new AtomicLong();
+
+    // Launchers which page through the home screen pan with offsets, so drags would move the view twice
+    private static final AtomicBoolean OFFSETS_PAGED = new AtomicBoolean();
+
+    // Pointer being tracked for drags, only used on the main thread
+    private int _pointerId = -1;
+    private float _lastX;
+    private float _lastY;
+
+    private static long pack(float x, float y) {
+        return ((long) Float.floatToRawIntBits(x) << 32) | (Float.floatToRawIntBits(y) & 0xFFFFFFFFL);
+    }
+
+    private static float unpackX(long value) {
+        return Float.intBitsToFloat((int) (value >>> 32));
+    }
+
+    private static float unpackY(long value) {
+        return Float.intBitsToFloat((int) value);
+    }
+
+    /**
+     * Posts the launcher's wallpaper offsets, each between 0 and 1.
+     */
+    void postOffsets(float xOffset, float yOffset, float xOffsetStep, float yOffsetStep) {
+        OFFSETS_PAGED.set(xOffsetStep > 0 || yOffsetStep > 0);
+        OFFSETS.set(pack(xOffset, yOffset));
+    }
+
+    /**
+     * Posts the size of the surface in layout pixels, which touches are reported in, and the size it is rendered at.
+     */
+    void postSurfaceSize(int layoutWidth, int layoutHeight, int width, int height) {
+        SIZES.set(((long) (layoutWidth & 0xFFFF) << 48) | ((long) (layoutHeight & 0xFFFF) << 32)
+                | ((long) (width & 0xFFFF) << 16) | (height & 0xFFFF));
+    }
+
+    /**
+     * Posts the movement of the first pointer of a touch. Moves batch several samples, but only the distance
+     * covered matters, so historical samples do not need to be visited.
+     */
+    void postTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                _pointerId = event.getPointerId(0);
+                _lastX = event.getX(0);
+                _lastY = event.getY(0);
+                break;
+            case MotionEvent.ACTION_MOVE: {
+                int index = _pointerId >= 0 ? event.findPointerIndex(_pointerId) : -1;
+                if (index < 0) {
+                    break;
+                }
+
+                float x = event.getX(index);
+                float y = event.getY(index);
+                if (!OFFSETS_PAGED.get()) {
+                    postDrag(x - _lastX, y - _lastY);
+                }
+                _lastX = x;
+                _lastY = y;
+                break;
+            }
+            case MotionEvent.ACTION_POINTER_UP:
+                if (event.getPointerId(event.getActionIndex()) == _pointerId) {
+                    _pointerId = -1;
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                _pointerId = -1;
+                break;
+        }
+    }
+
+    private static void postDrag(float dx, float dy) {
+        long current;
+        long next;
+        do {
+            current = DRAG.get();
+            next = pack(unpackX(current) + dx, unpackY(current) + dy);
+        } while (!DRAG.compareAndSet(current, next));
+    }
+
+    /**
+     * Called by the game thread once per frame. Fills state with the latest offsets, NaN until the launcher has sent
+     * any, the drag in layout pixels since the last call, and the layout and surface sizes.
+     */
+    static void drain(float[] state) {
+        long offsets = OFFSETS.get();
+        long drag = DRAG.getAndSet(NO_DRAG);
+        state[STATE_OFFSET_X] = unpackX(offsets);
+        state[STATE_OFFSET_Y] = unpackY(offsets);
+        state[STATE_DRAG_X] = unpackX(drag);
+        state[STATE_DRAG_Y] = unpackY(drag);
+
+        long sizes = SIZES.get();
+        state[STATE_LAYOUT_WIDTH] = (sizes >>> 48) & 0xFFFF;
+        state[STATE_LAYOUT_HEIGHT] = (sizes >>> 32) & 0xFFFF;
+        state[STATE_SURFACE_WIDTH] = (sizes >>> 16) & 0xFFFF;
+        state[STATE_SURFACE_HEIGHT] = sizes & 0xFFFF;
+    }
+}
@@ -0,0 +1,84 @@
+package io.openrct2;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.PixelFormat;
+import android.preference.PreferenceManager;
+
+/**
+ * Keys and defaults of the wallpaper preferences edited in WallpaperSettingsActivity.
+ */
+final class WallpaperSettings {
+    static final String KEY_FRAME_RATE = "frame_rate";
+    static final String KEY_RENDER_SCALE = "render_scale";
+    static final String KEY_SURFACE_FORMAT = "surface_format";
+    static final String KEY_HIDDEN_TICK_RATE = "hidden_tick_rate";
+
+    // Match android:defaultValue in res/xml/wallpaper_settings.xml
+    private static final String DEFAULT_FRAME_RATE = "0";
+    private static final String DEFAULT_RENDER_SCALE = "1";
+    private static final String DEFAULT_SURFACE_FORMAT = "rgb565";
+    private static final String DEFAULT_HIDDEN_TICK_RATE = "4";
+
+    // Render scale which divides the surface by the largest whole number that keeps its shorter side at or above
+    // MIN_INTEGER_SCALE_SIZE, so every rendered pixel becomes an exact block of surface pixels
+    private static final String RENDER_SCALE_INTEGER = "integer";
+    private static final int MIN_INTEGER_SCALE_SIZE = 720;
+
+    private WallpaperSettings() {
+    }
+
+    static SharedPreferences getPreferences(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context);
+    }
+
+    /**
+     * @return the frame rate limit, or 0 to follow the refresh rate of the display.
+     */
+    static int getFrameRate(SharedPreferences preferences) {
+        try {
+            return Math.max(0, Integer.parseInt(preferences.getString(KEY_FRAME_RATE, DEFAULT_FRAME_RATE)));
+        } catch (NumberFormatException e) {
+            return Integer.parseInt(DEFAULT_FRAME_RATE);
+        }
+    }
+
+    /**
+     * @return the fraction of a surface of the given size to render at.
+     */
+    static float getRenderScale(SharedPreferences preferences, int width, int height) {
+        String value = preferences.getString(KEY_RENDER_SCALE, DEFAULT_RENDER_SCALE);
+        if (RENDER_SCALE_INTEGER.equals(value)) {
+            int divisor = Math.max(1, Math.min(width, height) / MIN_INTEGER_SCALE_SIZE);
+            return 1.0f / divisor;
+        }
+
+        try {
+            float scale = Float.parseFloat(value);
+            return scale > 0 && scale <= 1 ? scale : 1.0f;
+        } catch (NumberFormatException e) {
+            return 1.0f;
+        }
+    }
+
+    /**
+     * @return the PixelFormat to request for the wallpaper surface. Wallpapers are opaque, so neither format has alpha.
+     */
+    static int getSurfaceFormat(SharedPreferences preferences) {
+        if ("rgbx8888".equals(preferences.getString(KEY_SURFACE_FORMAT, DEFAULT_SURFACE_FORMAT))) {
+            return PixelFormat.RGBX_8888;
+        }
+        return PixelFormat.RGB_565;
+    }
+
+    /**
+     * @return the number of game ticks per second while the wallpaper is hidden, 0 to pause the game.
+     */
+    static int getHiddenTickRate(SharedPreferences preferences) {
+        try {
+            return Math.max(0, Integer.parseInt(preferences.getString(KEY_HIDDEN_TICK_RATE, DEFAULT_HIDDEN_TICK_RATE)));
+        } catch (NumberFormatException e) {
+            return Integer.parseInt(DEFAULT_HIDDEN_TICK_RATE);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.openrct2;
+
+import android.os.Bundle;
+import android.preference.PreferenceActivity;
+
+/**
+ * Opened from the wallpaper picker. The running wallpaper listens for changes to these preferences.
+ */
+public class WallpaperSettingsActivity extends PreferenceActivity {
+    @Override
+    @SuppressWarnings("deprecation")
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        addPreferencesFromResource(R.xml.wallpaper_settings);
+    }
+}
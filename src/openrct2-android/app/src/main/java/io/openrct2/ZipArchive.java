@@ -2,48 +2,220 @@ package io.openrct2;
 
 import android.util.Log;
 
-import org.apache.commons.io.IOUtils;
-
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 public class ZipArchive {
 
+    private static final int CENTRAL_DIRECTORY_END_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_ENTRY_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_DIRECTORY_END_SIZE = 22;
+    private static final int CENTRAL_DIRECTORY_ENTRY_SIZE = 46;
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    // Longest single read of local headers, headers further apart than this are read separately
+    private static final int MAX_HEADERS_READ_SIZE = 64 * 1024;
+
+    // Upper bound of ZipFile handles per archive, so native threads can inflate entries in parallel
+    private static final int MAX_READERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    // Open archives, so that trimMemory can reach them
+    private static final Set<ZipArchive> OPEN_ARCHIVES =
+        Collections.newSetFromMap(new WeakHashMap<ZipArchive, Boolean>());
+
+    private final String _path;
     private final ZipFile _zipArchive;
+    private final ConcurrentLinkedQueue<ZipFile> _readers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _numReaders = new AtomicInteger(1);
+    private volatile boolean _closed;
+
+    // Central directory index, built once on open so lookups do not walk ZipFile.entries().
+    // Only ever replaced by null when the archive is closed, so it is read without locking.
+    private volatile ZipEntry[] _entries;
+    private volatile HashMap<String, Integer> _entryIndices;
+
+    // Local header offsets of STORED entries, read lazily from the central directory.
+    // Guarded by this, as trimMemory may close the file at any time.
+    private HashMap<String, Long> _storedHeaderOffsets;
+    private RandomAccessFile _rawFile;
 
     public ZipArchive(String path) throws IOException {
+        _path = path;
         _zipArchive = new ZipFile(path);
+
+        int numEntries = _zipArchive.size();
+        ZipEntry[] entryList = new ZipEntry[numEntries];
+        HashMap<String, Integer> entryIndices = new HashMap<>(numEntries * 4 / 3 + 1);
+
+        Enumeration<? extends ZipEntry> entries = _zipArchive.entries();
+
+        int i = 0;
+        while (entries.hasMoreElements() && i < numEntries) {
+            ZipEntry entry = entries.nextElement();
+            entryList[i] = entry;
+
+            // Keep the first match, the same as the old linear scan did
+            String key = foldName(entry.getName());
+            if (!entryIndices.containsKey(key)) {
+                entryIndices.put(key, i);
+            }
+
+            i++;
+        }
+
+        _entries = entryList;
+        _entryIndices = entryIndices;
+
+        synchronized (OPEN_ARCHIVES) {
+            OPEN_ARCHIVES.add(this);
+        }
+    }
+
+    private static String foldName(String name) {
+        return name.toLowerCase(Locale.ROOT);
     }
 
     public void close() {
+        synchronized (OPEN_ARCHIVES) {
+            OPEN_ARCHIVES.remove(this);
+        }
+
+        _closed = true;
+        _entries = null;
+        _entryIndices = null;
+
+        synchronized (this) {
+            _storedHeaderOffsets = null;
+            if (_rawFile != null) {
+                closeQuietly(_rawFile);
+                _rawFile = null;
+            }
+        }
+
+        ZipFile reader;
+        while ((reader = _readers.poll()) != null) {
+            closeQuietly(reader);
+        }
+
+        closeQuietly(_zipArchive);
+    }
+
+    /**
+     * Closes the idle readers and drops the header offsets of all open archives. Both are created again on demand.
+     *
+     * @return the number of readers closed.
+     */
+    static int trimMemory() {
+        ArrayList<ZipArchive> archives;
+        synchronized (OPEN_ARCHIVES) {
+            archives = new ArrayList<>(OPEN_ARCHIVES);
+        }
+
+        int numClosed = 0;
+        for (ZipArchive archive : archives) {
+            numClosed += archive.trimReaders();
+        }
+        return numClosed;
+    }
+
+    private int trimReaders() {
+        int numClosed = 0;
+        ZipFile reader;
+        while ((reader = _readers.poll()) != null) {
+            _numReaders.decrementAndGet();
+            closeQuietly(reader);
+            numClosed++;
+        }
+
+        synchronized (this) {
+            _storedHeaderOffsets = null;
+            if (_rawFile != null) {
+                closeQuietly(_rawFile);
+                _rawFile = null;
+            }
+        }
+        return numClosed;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
         try {
-            _zipArchive.close();
+            closeable.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    public int getNumFiles() {
-        return _zipArchive.size();
+    private ZipFile acquireReader() throws IOException {
+        ZipFile reader = _readers.poll();
+        if (reader != null) {
+            return reader;
+        }
+
+        if (_numReaders.incrementAndGet() <= MAX_READERS) {
+            try {
+                return new ZipFile(_path);
+            } catch (IOException e) {
+                _numReaders.decrementAndGet();
+                throw e;
+            }
+        }
+        _numReaders.decrementAndGet();
+
+        // ZipFile is safe to share between threads, callers just contend on its lock
+        return _zipArchive;
     }
 
-    private ZipEntry getZipEntry(int index) {
-        Enumeration<? extends ZipEntry> entries = _zipArchive.entries();
+    private void releaseReader(ZipFile reader) {
+        if (reader == _zipArchive) {
+            return;
+        }
 
-        int i = 0;
-        while (entries.hasMoreElements()) {
-            ZipEntry entry = entries.nextElement();
-            if (index == i) {
-                return entry;
-            }
+        _readers.offer(reader);
 
-            i++;
+        // close() may have drained the pool while this reader was in use
+        if (_closed && _readers.remove(reader)) {
+            closeQuietly(reader);
         }
+    }
 
-        return null;
+    public int getNumFiles() {
+        ZipEntry[] entries = _entries;
+        if (entries == null) {
+            return 0;
+        }
+
+        return entries.length;
+    }
+
+    private ZipEntry getZipEntry(int index) {
+        ZipEntry[] entries = _entries;
+        if (entries == null || index < 0 || index >= entries.length) {
+            return null;
+        }
+
+        return entries[index];
     }
 
     public String getFileName(int index) {
@@ -67,41 +239,402 @@ public class ZipArchive {
     }
 
     public int getFileIndex(String path) {
-        Enumeration<? extends ZipEntry> entries = _zipArchive.entries();
+        HashMap<String, Integer> entryIndices = _entryIndices;
+        if (entryIndices == null || path == null) {
+            return -1;
+        }
 
-        int i = 0;
-        while (entries.hasMoreElements()) {
-            ZipEntry entry = entries.nextElement();
-            if (entry.getName().equalsIgnoreCase(path)) {
-                return i;
+        Integer index = entryIndices.get(foldName(path));
+        if (index == null) {
+            return -1;
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the names of all entries in index order as UTF-8, each terminated by a zero byte,
+     * so native code can list the archive with a single call.
+     */
+    public byte[] getFileNames() {
+        ZipEntry[] entries = _entries;
+        if (entries == null) {
+            return new byte[0];
+        }
+
+        byte[][] names = new byte[entries.length][];
+        int length = 0;
+        for (int i = 0; i < entries.length; i++) {
+            names[i] = entries[i].getName().getBytes(StandardCharsets.UTF_8);
+            length += names[i].length + 1;
+        }
+
+        byte[] result = new byte[length];
+        int position = 0;
+        for (byte[] name : names) {
+            System.arraycopy(name, 0, result, position, name.length);
+            position += name.length + 1;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the uncompressed sizes of all entries in index order, -1 where the size is unknown.
+     */
+    public long[] getFileSizes() {
+        ZipEntry[] entries = _entries;
+        if (entries == null) {
+            return new long[0];
+        }
+
+        long[] sizes = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            sizes[i] = entries[i].getSize();
+        }
+
+        return sizes;
+    }
+
+    /**
+     * Returns the CRC-32 of the uncompressed data of all entries in index order, -1 where it is unknown.
+     */
+    public long[] getFileCrcs() {
+        ZipEntry[] entries = _entries;
+        if (entries == null) {
+            return new long[0];
+        }
+
+        long[] crcs = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            crcs[i] = entries[i].getCrc();
+        }
+
+        return crcs;
+    }
+
+    /**
+     * Returns the compression method of all entries in index order, ZipEntry.STORED or ZipEntry.DEFLATED, -1 where
+     * it is unknown.
+     */
+    public int[] getFileMethods() {
+        ZipEntry[] entries = _entries;
+        if (entries == null) {
+            return new int[0];
+        }
+
+        int[] methods = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            methods[i] = entries[i].getMethod();
+        }
+
+        return methods;
+    }
+
+    /**
+     * Returns getFileDataOffset for all entries in index order. The local headers are read in file
+     * order, several with each read where they are close together.
+     */
+    public long[] getFileDataOffsets() {
+        ZipEntry[] entries = _entries;
+        if (entries == null) {
+            return new long[0];
+        }
+
+        long[] offsets = new long[entries.length];
+        Arrays.fill(offsets, -1);
+
+        synchronized (this) {
+            try {
+                HashMap<String, Long> storedHeaderOffsets = loadStoredHeaderOffsets();
+                if (storedHeaderOffsets == null) {
+                    return offsets;
+                }
+
+                // Header offsets are below 4 GiB, so each fits above its entry's index in one sortable value
+                long[] headers = new long[entries.length];
+                int numHeaders = 0;
+                for (int i = 0; i < entries.length; i++) {
+                    Long headerOffset = entries[i].getMethod() == ZipEntry.STORED
+                        ? storedHeaderOffsets.get(entries[i].getName()) : null;
+                    if (headerOffset != null) {
+                        headers[numHeaders++] = (headerOffset << 31) | i;
+                    }
+                }
+                Arrays.sort(headers, 0, numHeaders);
+
+                int first = 0;
+                while (first < numHeaders) {
+                    long start = headers[first] >>> 31;
+                    int last = first;
+                    while (last + 1 < numHeaders
+                        && (headers[last + 1] >>> 31) + LOCAL_HEADER_SIZE - start <= MAX_HEADERS_READ_SIZE) {
+                        last++;
+                    }
+
+                    long end = (headers[last] >>> 31) + LOCAL_HEADER_SIZE;
+                    ByteBuffer buffer = readBytes(_rawFile, start, (int) (end - start));
+                    for (int i = first; i <= last; i++) {
+                        long headerOffset = headers[i] >>> 31;
+                        int index = (int) (headers[i] & Integer.MAX_VALUE);
+                        offsets[index] = getDataOffset(buffer, (int) (headerOffset - start), headerOffset);
+                    }
+                    first = last + 1;
+                }
+            } catch (IOException e) {
+                Log.e("ZipArchive", "Unable to read local headers of " + _path, e);
             }
+        }
 
-            i++;
+        return offsets;
+    }
+
+    /**
+     * Returns the absolute offset of the entry's data within the archive file, so native code can
+     * map the archive and read the entry in place. The data is getFileSize(index) bytes long.
+     *
+     * @return the offset, or -1 if the entry is compressed or its offset can not be determined.
+     */
+    public long getFileDataOffset(int index) {
+        ZipEntry entry = getZipEntry(index);
+
+        if (entry == null || entry.getMethod() != ZipEntry.STORED) {
+            return -1;
         }
 
-        return -1;
+        synchronized (this) {
+            try {
+                HashMap<String, Long> storedHeaderOffsets = loadStoredHeaderOffsets();
+                if (storedHeaderOffsets == null) {
+                    return -1;
+                }
+
+                Long headerOffset = storedHeaderOffsets.get(entry.getName());
+                if (headerOffset == null) {
+                    return -1;
+                }
+
+                ByteBuffer header = readBytes(_rawFile, headerOffset, LOCAL_HEADER_SIZE);
+                return getDataOffset(header, 0, headerOffset);
+            } catch (IOException e) {
+                Log.e("ZipArchive", "Unable to read central directory of " + _path, e);
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Returns the offset of the data following the local header at position in buffer, which was
+     * read from headerOffset in the file, or -1 if there is no local header.
+     */
+    private static long getDataOffset(ByteBuffer buffer, int position, long headerOffset) {
+        if (buffer.getInt(position) != LOCAL_HEADER_SIGNATURE) {
+            return -1;
+        }
+
+        int nameLength = buffer.getShort(position + 26) & 0xFFFF;
+        int extraLength = buffer.getShort(position + 28) & 0xFFFF;
+        return headerOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+    }
+
+    /**
+     * Reads the header offsets and opens the file to read the local headers from, unless trimMemory
+     * has not closed them since. Called with the lock held.
+     *
+     * @return the offsets, or null if the archive has been closed.
+     */
+    private HashMap<String, Long> loadStoredHeaderOffsets() throws IOException {
+        if (_storedHeaderOffsets == null && !_closed) {
+            RandomAccessFile rawFile = new RandomAccessFile(_path, "r");
+            try {
+                _storedHeaderOffsets = readStoredHeaderOffsets(rawFile);
+            } catch (IOException e) {
+                closeQuietly(rawFile);
+                throw e;
+            }
+            _rawFile = rawFile;
+        }
+        return _storedHeaderOffsets;
     }
 
-    public long getFile(int index) throws IOException {
+    private static HashMap<String, Long> readStoredHeaderOffsets(RandomAccessFile file) throws IOException {
+        HashMap<String, Long> offsets = new HashMap<>();
+
+        // The end of central directory record is followed by a comment of up to 64 KiB
+        long fileLength = file.length();
+        int tailLength = (int) Math.min(fileLength, CENTRAL_DIRECTORY_END_SIZE + 0xFFFF);
+        ByteBuffer tail = readBytes(file, fileLength - tailLength, tailLength);
+
+        int endPosition = -1;
+        for (int i = tailLength - CENTRAL_DIRECTORY_END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == CENTRAL_DIRECTORY_END_SIGNATURE) {
+                endPosition = i;
+                break;
+            }
+        }
+        if (endPosition == -1) {
+            return offsets;
+        }
+
+        long directorySize = tail.getInt(endPosition + 12) & 0xFFFFFFFFL;
+        long directoryOffset = tail.getInt(endPosition + 16) & 0xFFFFFFFFL;
+        if (directoryOffset == 0xFFFFFFFFL || directoryOffset + directorySize > fileLength) {
+            // Zip64 archives are not supported, those entries just take the normal path
+            return offsets;
+        }
+
+        ByteBuffer directory = readBytes(file, directoryOffset, (int) directorySize);
+        int position = 0;
+        while (position + CENTRAL_DIRECTORY_ENTRY_SIZE <= directorySize
+            && directory.getInt(position) == CENTRAL_DIRECTORY_ENTRY_SIGNATURE) {
+            int method = directory.getShort(position + 10) & 0xFFFF;
+            int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            long headerOffset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+
+            if (method == ZipEntry.STORED && headerOffset != 0xFFFFFFFFL) {
+                byte[] name = new byte[nameLength];
+                directory.position(position + CENTRAL_DIRECTORY_ENTRY_SIZE);
+                directory.get(name);
+                offsets.put(new String(name, StandardCharsets.UTF_8), headerOffset);
+            }
+
+            position += CENTRAL_DIRECTORY_ENTRY_SIZE + nameLength + extraLength + commentLength;
+        }
+
+        return offsets;
+    }
+
+    private static ByteBuffer readBytes(RandomAccessFile file, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        FileChannel channel = file.getChannel();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) == -1) {
+                throw new EOFException();
+            }
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Inflates the entry at index straight into buffer, which is a direct buffer owned by native code.
+     *
+     * @return number of bytes written to buffer, or -1 if there is no such entry.
+     */
+    public long getFile(int index, ByteBuffer buffer) throws IOException {
         ZipEntry entry = getZipEntry(index);
 
         if (entry == null) {
-            return 0;
+            return -1;
         }
 
-        InputStream inputStream = _zipArchive.getInputStream(entry);
+        long numBytesRead = 0;
+        ZipFile reader = acquireReader();
+        InputStream inputStream = null;
+        try {
+            inputStream = reader.getInputStream(entry);
+            ReadableByteChannel channel = Channels.newChannel(inputStream);
+            while (buffer.hasRemaining()) {
+                int numBytes = channel.read(buffer);
+                if (numBytes == -1) {
+                    break;
+                }
 
-        int numBytesToRead = (int) entry.getSize();
-        if (numBytesToRead == -1) {
-            Log.e("ZipArchive", "Unknown length for zip entry");
-            return 0;
+                numBytesRead += numBytes;
+            }
+        } finally {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+            releaseReader(reader);
         }
 
-        byte[] inBuffer = new byte[numBytesToRead];
-        IOUtils.read(inputStream, inBuffer);
+        return numBytesRead;
+    }
+
+    /**
+     * Inflates several entries, each into its own direct buffer owned by native code that holds
+     * getFileSize bytes, so that no entry is copied again afterwards.
+     *
+     * @return number of bytes written for each entry, -1 where the entry does not exist.
+     */
+    public long[] getFiles(int[] indices, ByteBuffer[] buffers) throws IOException {
+        long[] numBytesRead = new long[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            numBytesRead[i] = getFile(indices[i], buffers[i]);
+        }
+        return numBytesRead;
+    }
+
+    /**
+     * Opens the entry at index for chunked reading, or returns null if there is no such entry.
+     * Works for entries whose uncompressed size is not recorded in the archive.
+     */
+    public EntryStream openFile(int index) throws IOException {
+        ZipEntry entry = getZipEntry(index);
+
+        if (entry == null) {
+            return null;
+        }
 
-        return allocBytes(inBuffer, numBytesToRead);
+        ZipFile reader = acquireReader();
+        try {
+            return new EntryStream(reader, reader.getInputStream(entry));
+        } catch (IOException e) {
+            releaseReader(reader);
+            throw e;
+        }
     }
 
-    native static long allocBytes(byte[] input, int size);
+    public class EntryStream {
+
+        private final ZipFile _reader;
+        private final InputStream _inputStream;
+        private final ReadableByteChannel _channel;
+        private boolean _isClosed;
+
+        EntryStream(ZipFile reader, InputStream inputStream) {
+            _reader = reader;
+            _inputStream = inputStream;
+            _channel = Channels.newChannel(inputStream);
+        }
+
+        /**
+         * Fills buffer from its start with the next chunk of the entry. The buffer is a reusable
+         * direct buffer owned by native code.
+         *
+         * @return number of bytes written to buffer, or -1 at the end of the entry.
+         */
+        public int read(ByteBuffer buffer) throws IOException {
+            buffer.clear();
+
+            int numBytesRead = 0;
+            while (buffer.hasRemaining()) {
+                int numBytes = _channel.read(buffer);
+                if (numBytes == -1) {
+                    break;
+                }
+
+                numBytesRead += numBytes;
+            }
+
+            if (numBytesRead == 0 && buffer.capacity() != 0) {
+                return -1;
+            }
+
+            return numBytesRead;
+        }
+
+        public void close() {
+            if (_isClosed) {
+                return;
+            }
+
+            _isClosed = true;
+            closeQuietly(_inputStream);
+            releaseReader(_reader);
+        }
+    }
 }
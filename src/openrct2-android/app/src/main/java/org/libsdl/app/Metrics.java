@@ -0,0 +1,149 @@
+package org.libsdl.app;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograms of frame, tick and present times and of the latency of calls across JNI, printed by
+ * adb shell dumpsys activity service io.openrct2/.SDLActivity
+ *
+ * Calls from Java to native code are timed here, calls the other way and the game loop are timed
+ * by platform/Metrics.Android.cpp, which keeps its own histograms in the same layout. Histograms
+ * have a fixed number of buckets so recording never allocates or locks.
+ */
+public final class Metrics {
+    /**
+     * Buckets are a quarter of an octave of microseconds wide, so a percentile read from them is
+     * at most 25% too high.
+     */
+    public static final class Histogram {
+        // Must match platform/Metrics.Android.cpp
+        static final int NUM_BUCKETS = 96;
+
+        private final String mName;
+        private final AtomicLongArray mCounts = new AtomicLongArray(NUM_BUCKETS);
+
+        public Histogram(String name) {
+            mName = name;
+        }
+
+        /**
+         * Adds the time since start, a value of System.nanoTime.
+         */
+        public void record(long start) {
+            long micros = (System.nanoTime() - start) / 1000;
+            mCounts.incrementAndGet(getBucket(Math.max(micros, 0)));
+        }
+
+        static int getBucket(long micros) {
+            if (micros < 4) {
+                return (int) micros;
+            }
+            int octave = 63 - Long.numberOfLeadingZeros(micros);
+            int bucket = 4 * (octave - 1) + (int) ((micros >> (octave - 2)) & 3);
+            return Math.min(bucket, NUM_BUCKETS - 1);
+        }
+
+        static long getBucketUpperBound(int bucket) {
+            if (bucket < 4) {
+                return bucket + 1;
+            }
+            int octave = bucket / 4 + 1;
+            return (long) (4 + bucket % 4 + 1) << (octave - 2);
+        }
+
+        void copyTo(long[] counts) {
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                counts[i] = mCounts.get(i);
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                mCounts.set(i, 0);
+            }
+        }
+    }
+
+    public static final Histogram NATIVE_PAUSE = new Histogram("nativePause");
+    public static final Histogram NATIVE_RESUME = new Histogram("nativeResume");
+    public static final Histogram GET_NATIVE_SURFACE = new Histogram("getNativeSurface");
+
+    private static final Histogram[] JAVA_HISTOGRAMS = {NATIVE_PAUSE, NATIVE_RESUME, GET_NATIVE_SURFACE};
+
+    private Metrics() {
+    }
+
+    /**
+     * Prints the percentiles of every histogram.
+     *
+     * @param includeNative whether the native library is loaded and its histograms can be read.
+     * @param reset whether to clear the histograms afterwards, to measure from a known point.
+     */
+    public static void dump(PrintWriter writer, boolean includeNative, boolean reset) {
+        writer.println(String.format(Locale.US, "%-24s %10s %10s %10s %10s %10s",
+            "Metric (ms)", "count", "p50", "p95", "p99", "max"));
+
+        long[] counts = new long[Histogram.NUM_BUCKETS];
+        if (includeNative) {
+            String[] names = nativeGetNames();
+            for (int i = 0; i < names.length; i++) {
+                if (nativeGetCounts(i, counts)) {
+                    printHistogram(writer, names[i], counts);
+                }
+            }
+        }
+        for (Histogram histogram : JAVA_HISTOGRAMS) {
+            histogram.copyTo(counts);
+            printHistogram(writer, histogram.mName, counts);
+        }
+
+        if (reset) {
+            if (includeNative) {
+                nativeReset();
+            }
+            for (Histogram histogram : JAVA_HISTOGRAMS) {
+                histogram.reset();
+            }
+            writer.println("Metrics reset");
+        }
+    }
+
+    private static void printHistogram(PrintWriter writer, String name, long[] counts) {
+        long total = 0;
+        int maxBucket = -1;
+        for (int i = 0; i < counts.length; i++) {
+            total += counts[i];
+            if (counts[i] != 0) {
+                maxBucket = i;
+            }
+        }
+        if (total == 0) {
+            writer.println(String.format(Locale.US, "%-24s %10d", name, 0));
+            return;
+        }
+
+        writer.println(String.format(Locale.US, "%-24s %10d %10.3f %10.3f %10.3f %10.3f", name, total,
+            getPercentile(counts, total, 0.50), getPercentile(counts, total, 0.95),
+            getPercentile(counts, total, 0.99), Histogram.getBucketUpperBound(maxBucket) / 1000.0));
+    }
+
+    private static double getPercentile(long[] counts, long total, double percentile) {
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Histogram.getBucketUpperBound(i) / 1000.0;
+            }
+        }
+        return Histogram.getBucketUpperBound(counts.length - 1) / 1000.0;
+    }
+
+    private static native String[] nativeGetNames();
+
+    private static native boolean nativeGetCounts(int metric, long[] counts);
+
+    private static native void nativeReset();
+}
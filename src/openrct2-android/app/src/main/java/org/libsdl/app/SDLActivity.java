@@ -1,7 +1,11 @@
 package org.libsdl.app;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.graphics.PixelFormat;
+import android.graphics.Rect;
 import android.service.wallpaper.WallpaperService;
 import android.util.Log;
 import android.view.Display;
@@ -10,9 +14,12 @@ import android.view.Surface;
 import android.view.SurfaceHolder;
 import android.view.WindowManager;
 
+import java.io.FileDescriptor;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintWriter;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 
 public class SDLActivity extends WallpaperService {
     public static int activityCounter = 0;
@@ -27,7 +34,16 @@ public class SDLActivity extends WallpaperService {
     public static boolean mBrokenLibraries;
     public static boolean mSeparateMouseAndTouch;
     public static SDLActivity mSingleton;
+    /**
+     * The engine whose surface the native side renders to. Engines come and go as the wallpaper is previewed and set,
+     * the SDL thread outlives them and only its surface is handed over to the newest engine.
+     */
     private static SDLEngine mEngine;
+    private static Thread mSDLThread;
+    /**
+     * The engine with the latest surface while the libraries are still being loaded, see onLibrariesLoaded.
+     */
+    private SDLEngine mEngineAwaitingLibraries;
 
     /**
      * This method is called by SDL before loading the native shared libraries.
@@ -53,10 +69,46 @@ public class SDLActivity extends WallpaperService {
     public void loadLibraries() {
         Log.v(TAG, "loadLibraries");
         for (String lib : getLibraries()) {
-            System.loadLibrary(lib);
+            StartupTimeline.begin("loadLibrary " + lib);
+            try {
+                System.loadLibrary(lib);
+            } finally {
+                StartupTimeline.end();
+            }
         }
     }
 
+    /**
+     * This method is called on the main thread before native code is first called. By default the
+     * libraries have already been loaded by onCreate, it can be overridden to wait for libraries
+     * which are loaded in the background instead.
+     *
+     * @return whether native code can be called, false if the libraries could not be loaded or, if
+     * mBrokenLibraries is not set, are still being loaded. onLibrariesLoaded must then be called once
+     * they have been.
+     */
+    protected boolean awaitLibraries() {
+        return !mBrokenLibraries;
+    }
+
+    /**
+     * Like awaitLibraries, but returns false straight away if the libraries are still being loaded.
+     * Used by callbacks which have nothing to do for a game that has not been started yet.
+     */
+    protected boolean areLibrariesLoaded() {
+        return !mBrokenLibraries;
+    }
+
+    /**
+     * This method is called on the SDL thread before nativeInit. It can be overridden to wait for
+     * data the native application needs which is prepared in the background.
+     *
+     * @return whether the native application can be started.
+     */
+    protected boolean prepareNativeInit() {
+        return true;
+    }
+
     /**
      * This method is called by SDL before starting the native application thread.
      * It can be overridden to provide the arguments after the application name.
@@ -74,6 +126,109 @@ public class SDLActivity extends WallpaperService {
         };
     }
 
+    /**
+     * This method is called when a surface is sized. It can be overridden to render below the full
+     * surface size, the compositor then scales the result up to the full surface.
+     *
+     * @return the fraction of the full surface size to render at, 1 for the full size.
+     */
+    protected float getRenderScale(int fullWidth, int fullHeight) {
+        return 1.0f;
+    }
+
+    /**
+     * Starts the game on the surface that was left waiting by awaitLibraries. Called on the main thread.
+     */
+    public void onLibrariesLoaded() {
+        SDLEngine engine = mEngineAwaitingLibraries;
+        mEngineAwaitingLibraries = null;
+        if (engine != null && engine.mHasSurface && mEngine == null) {
+            Log.v(TAG, "Libraries loaded, starting the game");
+            engine.surfaceChanged(engine.mHolder, engine.mFormat, engine.mWidth, engine.mHeight);
+        }
+    }
+
+    /**
+     * Resizes the current surface after the value returned by getRenderScale has changed.
+     */
+    public void onRenderScaleChanged() {
+        if (mEngine != null && mEngine.mHolder != null) {
+            mEngine.updateRenderScale();
+        }
+    }
+
+    /**
+     * This method is called when the wallpaper is shown or hidden. By default the game is paused while hidden.
+     */
+    protected void onWallpaperVisibilityChanged(boolean visible) {
+        if (visible) {
+            SDLActivity.resumeNative();
+        } else {
+            SDLActivity.pauseNative();
+        }
+    }
+
+    /**
+     * This method is called on the main thread when the launcher scrolls the wallpaper. Offsets are
+     * between 0 and 1, steps are 0 when the launcher does not page.
+     */
+    protected void onWallpaperOffsetsChanged(float xOffset, float yOffset, float xOffsetStep, float yOffsetStep) {
+    }
+
+    /**
+     * This method is called on the main thread for touches on the home screen which reach the wallpaper.
+     * Touch coordinates are in layout pixels, which differ from surface pixels below the full render scale.
+     */
+    protected void onWallpaperTouchEvent(MotionEvent event) {
+    }
+
+    /**
+     * This method is called on the main thread before the game renders to a surface, with the size of
+     * the surface in layout pixels and the size it is rendered at.
+     */
+    protected void onWallpaperSurfaceSized(int layoutWidth, int layoutHeight, int width, int height) {
+    }
+
+    /**
+     * This method is called when an engine is created. It can be overridden to request a pixel
+     * format for the surface, such as PixelFormat.RGB_565 to halve the bytes written per frame.
+     *
+     * @return the PixelFormat to request, or PixelFormat.UNKNOWN to keep the default.
+     */
+    protected int getSurfaceFormat() {
+        return PixelFormat.UNKNOWN;
+    }
+
+    /**
+     * Requests a new pixel format for the current surface after the value returned by
+     * getSurfaceFormat has changed.
+     */
+    public void onSurfaceFormatChanged() {
+        if (mEngine != null && mEngine.mHolder != null) {
+            mEngine.applySurfaceFormat(mEngine.mHolder);
+        }
+    }
+
+    /**
+     * This method is called when a preview engine gets its surface. It can be overridden to return
+     * a still of the game, which the preview then shows instead of taking over the game.
+     *
+     * @return the still to show, or null to run the game in the preview.
+     */
+    protected Bitmap getPreviewSnapshot() {
+        return null;
+    }
+
+    /**
+     * @return the holder of the surface the game is drawing to, or null while it has none.
+     */
+    public static SurfaceHolder getGameSurfaceHolder() {
+        if (mEngine == null || !mIsSurfaceReady) {
+            return null;
+        }
+        return mEngine.mHolder;
+    }
+
     public static void initialize() {
         Log.v(TAG, "initialize");
         mSingleton = null;
@@ -116,7 +271,7 @@ public class SDLActivity extends WallpaperService {
         Log.v(TAG, "onLowMemory()");
         super.onLowMemory();
 
-        if (SDLActivity.mBrokenLibraries) {
+        if (!areLibrariesLoaded()) {
             return;
         }
 
@@ -127,7 +282,8 @@ public class SDLActivity extends WallpaperService {
     public void onDestroy() {
         Log.v(TAG, "onDestroy()");
 
-        if (SDLActivity.mBrokenLibraries) {
+        // The game thread is only started once the libraries are loaded
+        if (!areLibrariesLoaded()) {
             super.onDestroy();
             // Reset everything in case the user re opens the app
             SDLActivity.initialize();
@@ -139,22 +295,32 @@ public class SDLActivity extends WallpaperService {
         SDLActivity.nativeQuit();
 
         // Now wait for the SDL thread to quit
-        if (mEngine.mSDLThread != null) {
+        if (mSDLThread != null) {
             try {
-                mEngine.mSDLThread.join();
+                mSDLThread.join();
             } catch (Exception e) {
                 Log.v(TAG, "Problem stopping thread: " + e);
             }
-            mEngine.mSDLThread = null;
+            mSDLThread = null;
 
             Log.v(TAG, "Finished waiting for SDL thread");
         }
 
         super.onDestroy();
         // Reset everything in case the user re opens the app
+        mEngine = null;
         SDLActivity.initialize();
     }
 
+    /**
+     * Prints the metrics for adb shell dumpsys, pass --reset to clear them afterwards.
+     */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        boolean reset = args != null && Arrays.asList(args).contains("--reset");
+        Metrics.dump(writer, areLibrariesLoaded(), reset);
+    }
+
     public static native int nativeInit(Object arguments);
 
     public static native void nativeLowMemory();
@@ -165,6 +331,18 @@ public class SDLActivity extends WallpaperService {
 
     public static native void nativeResume();
 
+    static void pauseNative() {
+        long start = System.nanoTime();
+        nativePause();
+        Metrics.NATIVE_PAUSE.record(start);
+    }
+
+    static void resumeNative() {
+        long start = System.nanoTime();
+        nativeResume();
+        Metrics.NATIVE_RESUME.record(start);
+    }
+
     public static native void onNativeDropFile(String filename);
 
     public static native void onNativeResize(int x, int y, int format, float rate);
@@ -269,8 +447,11 @@ public class SDLActivity extends WallpaperService {
      * This method is called by SDL using JNI.
      */
     public static Surface getNativeSurface() {
+        long start = System.nanoTime();
         Log.v(TAG, "getNativeSurface " + mEngine.TAG);
-        return mEngine.mHolder.getSurface();
+        Surface surface = mEngine.mHolder.getSurface();
+        Metrics.GET_NATIVE_SURFACE.record(start);
+        return surface;
     }
 
     /**
@@ -474,30 +655,34 @@ public class SDLActivity extends WallpaperService {
     @Override
     public Engine onCreateEngine() {
         Log.v(TAG, "onCreateEngine");
+        StartupTimeline.mark("onCreateEngine");
 
-        if (mEngine != null) {
-            Log.v(TAG, "Waiting for SDL thread");
-            if (mEngine.mSDLThread != null) {
-                SDLActivity.nativeQuit();
-                try {
-                    mEngine.mSDLThread.join();
-                } catch (Exception e) {
-                    Log.v(TAG, "Problem stopping thread: " + e);
-                }
-            }
-            Log.v(TAG, "SDL thread finished");
-        }
+        // The running game is kept, the new engine takes over the native surface once its own surface is ready
         Log.v(TAG, "Creating SDL Engine");
-        mEngine = new SDLEngine(TAG);
-        return mEngine;
+        return new SDLEngine(TAG);
     }
 
     class SDLEngine extends Engine {
         public String TAG = "SDLEngine";
-        public Thread mSDLThread;
         private SurfaceHolder mHolder;
         protected Display mDisplay;
 
+        // Size of the surface before setFixedSize, which the render size is derived from
+        private boolean mFixedSize;
+        private int mFullWidth;
+        private int mFullHeight;
+
+        // Still shown by a preview engine instead of the game, a surface drawn with a canvas can no
+        // longer be rendered to by SDL
+        private Bitmap mSnapshot;
+
+        // The last onSurfaceChanged of the current surface, to take the game back with once the
+        // engine that took it over has let go of its surface
+        private boolean mHasSurface;
+        private int mFormat;
+        private int mWidth;
+        private int mHeight;
+
         SDLEngine(String prefix) {
             super();
             TAG = prefix + ": " + TAG + " ENG: " + SDLActivity.engineCounter;
@@ -509,17 +694,51 @@ public class SDLActivity extends WallpaperService {
         @Override
         public void onVisibilityChanged(boolean visible) {
             Log.v(TAG, "onVisibilityChange " + (visible ? "true" : "false"));
-            if (visible) {
-                SDLActivity.nativeResume();
-            } else {
-                SDLActivity.nativePause();
+            if (SDLActivity.mEngine != this) {
+                if (!visible || SDLActivity.mIsSurfaceReady || !mHasSurface || mSnapshot != null) {
+                    // An engine that has been superseded no longer drives the game
+                    return;
+                }
+
+                // The engine that took over, such as a cancelled preview, has let go of its surface
+                Log.v(TAG, "Taking the game back");
+                surfaceChanged(mHolder, mFormat, mWidth, mHeight);
+                if (SDLActivity.mEngine != this) {
+                    return;
+                }
             }
+            mSingleton.onWallpaperVisibilityChanged(visible);
         }
 
         @Override
         public void onCreate(SurfaceHolder surfaceHolder) {
             super.onCreate(surfaceHolder);
             Log.v(TAG, "Engine onCreate");
+            applySurfaceFormat(surfaceHolder);
+            setTouchEventsEnabled(true);
+        }
+
+        @Override
+        public void onOffsetsChanged(float xOffset, float yOffset, float xOffsetStep, float yOffsetStep,
+                                     int xPixelOffset, int yPixelOffset) {
+            if (SDLActivity.mEngine == this) {
+                mSingleton.onWallpaperOffsetsChanged(xOffset, yOffset, xOffsetStep, yOffsetStep);
+            }
+        }
+
+        @Override
+        public void onTouchEvent(MotionEvent event) {
+            if (SDLActivity.mEngine == this) {
+                mSingleton.onWallpaperTouchEvent(event);
+            }
+        }
+
+        void applySurfaceFormat(SurfaceHolder holder) {
+            int format = mSingleton.getSurfaceFormat();
+            if (format != PixelFormat.UNKNOWN) {
+                Log.v(TAG, "Requesting pixel format " + format);
+                holder.setFormat(format);
+            }
         }
 
         @Override
@@ -538,11 +757,44 @@ public class SDLActivity extends WallpaperService {
 
         @Override
         public void onSurfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+            StartupTimeline.begin("onSurfaceChanged");
+            try {
+                surfaceChanged(holder, format, width, height);
+            } finally {
+                StartupTimeline.end();
+            }
+        }
+
+        private void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
             Log.v(TAG, "Engine onSurfaceChanged");
 
             if (mHolder != holder) {
                 return;
             }
+            mHasSurface = true;
+            mFormat = format;
+            mWidth = width;
+            mHeight = height;
+
+            if (mSnapshot != null || (isPreview() && SDLActivity.mEngine != this)) {
+                if (mSnapshot == null) {
+                    mSnapshot = mSingleton.getPreviewSnapshot();
+                }
+                if (mSnapshot != null) {
+                    drawSnapshot(holder);
+                    return;
+                }
+            }
+
+            if (!mFixedSize) {
+                mFullWidth = width;
+                mFullHeight = height;
+            }
+            if (applyRenderScale()) {
+                // Another onSurfaceChanged follows with the render size
+                return;
+            }
+            mSingleton.onWallpaperSurfaceSized(mFullWidth, mFullHeight, width, height);
 
             super.onSurfaceCreated(holder);
 
@@ -591,8 +843,29 @@ public class SDLActivity extends WallpaperService {
                     break;
             }
 
+            if (!mSingleton.awaitLibraries()) {
+                if (mBrokenLibraries) {
+                    Log.v(TAG, "Not starting the game, its libraries could not be loaded");
+                } else {
+                    Log.v(TAG, "Starting the game once its libraries have been loaded");
+                    mEngineAwaitingLibraries = this;
+                }
+                return;
+            }
+
+            SDLEngine previousEngine = SDLActivity.mEngine;
+            if (previousEngine != this && SDLActivity.mIsSurfaceReady) {
+                // Let go of the previous engine's surface before the game moves over to ours
+                Log.v(TAG, "Taking over surface from " + previousEngine.TAG);
+                SDLActivity.pauseNative();
+                SDLActivity.onNativeSurfaceDestroyed();
+                SDLActivity.mIsSurfaceReady = false;
+            }
+            SDLActivity.mEngine = this;
+
             SDLActivity.onNativeResize(width, height, sdlFormat, mDisplay.getRefreshRate());
             SDLActivity.onNativeSurfaceChanged();
+            SDLActivity.mIsSurfaceReady = true;
 
             if (mSDLThread == null) {
                 Log.v(TAG, "Starting SDLThread");
@@ -600,7 +873,81 @@ public class SDLActivity extends WallpaperService {
                 mSDLThread.start();
             } else {
                 Log.v(TAG, "SDLThread already exists");
-                SDLActivity.nativeResume();
+                SDLActivity.resumeNative();
+            }
+        }
+
+        @Override
+        public void onSurfaceRedrawNeeded(SurfaceHolder holder) {
+            if (mSnapshot != null && holder == mHolder) {
+                drawSnapshot(holder);
+            }
+        }
+
+        /**
+         * Draws the snapshot so that it covers the whole surface, cropping whichever side is too long.
+         */
+        private void drawSnapshot(SurfaceHolder holder) {
+            Canvas canvas = holder.lockCanvas();
+            if (canvas == null) {
+                return;
+            }
+
+            int width = canvas.getWidth();
+            int height = canvas.getHeight();
+            int snapshotWidth = mSnapshot.getWidth();
+            int snapshotHeight = mSnapshot.getHeight();
+            Rect source;
+            if ((long) snapshotWidth * height > (long) width * snapshotHeight) {
+                int cropWidth = (int) ((long) snapshotHeight * width / height);
+                int left = (snapshotWidth - cropWidth) / 2;
+                source = new Rect(left, 0, left + cropWidth, snapshotHeight);
+            } else {
+                int cropHeight = (int) ((long) snapshotWidth * height / width);
+                int top = (snapshotHeight - cropHeight) / 2;
+                source = new Rect(0, top, snapshotWidth, top + cropHeight);
+            }
+            canvas.drawBitmap(mSnapshot, source, new Rect(0, 0, width, height), new Paint(Paint.FILTER_BITMAP_FLAG));
+            holder.unlockCanvasAndPost(canvas);
+            Log.v(TAG, "Showing snapshot instead of the game");
+        }
+
+        /**
+         * Sizes the surface for the render scale, the native side then renders at the smaller size.
+         *
+         * @return true if the surface size was changed and another onSurfaceChanged will follow.
+         */
+        private boolean applyRenderScale() {
+            float scale = mSingleton.getRenderScale(mFullWidth, mFullHeight);
+            if (scale >= 1.0f) {
+                if (mFixedSize) {
+                    mHolder.setSizeFromLayout();
+                    mFixedSize = false;
+                    return true;
+                }
+                return false;
+            }
+
+            int width = Math.max(1, Math.round(mFullWidth * scale));
+            int height = Math.max(1, Math.round(mFullHeight * scale));
+            Rect frame = mHolder.getSurfaceFrame();
+            if (mFixedSize && frame.width() == width && frame.height() == height) {
+                return false;
+            }
+
+            Log.v(TAG, "Rendering at " + width + "x" + height + " for " + mFullWidth + "x" + mFullHeight);
+            mHolder.setFixedSize(width, height);
+            mFixedSize = true;
+            return true;
+        }
+
+        void updateRenderScale() {
+            if (mFixedSize) {
+                // Go back to the full size first, as the layout may have changed since it was measured
+                mHolder.setSizeFromLayout();
+                mFixedSize = false;
+            } else {
+                applyRenderScale();
             }
         }
 
@@ -612,12 +959,17 @@ public class SDLActivity extends WallpaperService {
             }
             if (holder == mHolder) {
                 Log.v(TAG, "destroyed mHolder");
+                mHasSurface = false;
+                if (mEngineAwaitingLibraries == this) {
+                    mEngineAwaitingLibraries = null;
+                }
             }
-            if (holder == SDLActivity.mEngine.mHolder) {
+            if (SDLActivity.mEngine == this && holder == mHolder) {
                 Log.v(TAG, "destroyed SDLActivity.mEngine.mHolder");
                 super.onSurfaceDestroyed(holder);
-                SDLActivity.nativePause();
+                SDLActivity.pauseNative();
                 SDLActivity.onNativeSurfaceDestroyed();
+                SDLActivity.mIsSurfaceReady = false;
             } else {
                 Log.v(TAG, "Wrong destroyed");
             }
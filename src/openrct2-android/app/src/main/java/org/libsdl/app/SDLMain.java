@@ -9,7 +9,17 @@ public class SDLMain implements Runnable {
     public void run() {
         TAG = TAG + Math.round((Math.random() * 10));
         Log.v(TAG, "SDL thread start");
+        StartupTimeline.mark("SDL thread started");
 
+        if (!SDLActivity.mSingleton.prepareNativeInit()) {
+            Log.v(TAG, "SDL thread not started, the game could not be prepared");
+            return;
+        }
+        if (SDLActivity.mExitCalledFromJava) {
+            // The service was destroyed while the game was being prepared
+            Log.v(TAG, "SDL thread not started");
+            return;
+        }
         SDLActivity.nativeInit(SDLActivity.mSingleton.getArguments());
 
         Log.v(TAG, "SDL thread terminated");
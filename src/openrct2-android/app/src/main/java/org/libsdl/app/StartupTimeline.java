@@ -0,0 +1,251 @@
+package org.libsdl.app;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timeline of a cold start, from the application being created to the first frame the game draws.
+ *
+ * Phases are marked as android.os.Trace sections, so they show up in systrace and Perfetto. Once the first frame has
+ * been drawn the timeline is written to FILE_NAME in app storage in the Chrome trace event format, which Perfetto and
+ * chrome://tracing can open, and every later call does nothing. Phases are also called from native code through JNI.
+ */
+public final class StartupTimeline {
+    private static final String TAG = "StartupTimeline";
+
+    public static final String FILE_NAME = "startup-timeline.json";
+
+    private static class Event {
+        final String name;
+        final int tid;
+        final long start;
+        final long end;
+
+        Event(String name, int tid, long start, long end) {
+            this.name = name;
+            this.tid = tid;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static class OpenPhase {
+        final String name;
+        final long start;
+
+        OpenPhase(String name, long start) {
+            this.name = name;
+            this.start = start;
+        }
+    }
+
+    private static final long mOrigin = SystemClock.elapsedRealtimeNanos();
+    private static final List<Event> mEvents = new ArrayList<>();
+    private static final Map<Integer, String> mThreadNames = new HashMap<>();
+    private static final ThreadLocal<ArrayDeque<OpenPhase>> mOpenPhases = new ThreadLocal<ArrayDeque<OpenPhase>>() {
+        @Override
+        protected ArrayDeque<OpenPhase> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    private static Context mContext;
+    private static volatile boolean mFinished;
+
+    private StartupTimeline() {
+    }
+
+    /**
+     * Called once from Application.onCreate, the timeline is written to the storage of context.
+     */
+    public static void start(Context context) {
+        mContext = context.getApplicationContext();
+        mark("Application created");
+    }
+
+    /**
+     * Begins a phase on the calling thread, which lasts until the matching call to end on the same thread.
+     */
+    public static void begin(String name) {
+        if (mFinished) {
+            return;
+        }
+        Trace.beginSection(name);
+        mOpenPhases.get().push(new OpenPhase(name, SystemClock.elapsedRealtimeNanos()));
+    }
+
+    /**
+     * Ends the phase last begun on the calling thread. Phases which are still open when the timeline is written are
+     * left out of it.
+     */
+    public static void end() {
+        OpenPhase phase = mOpenPhases.get().poll();
+        if (phase == null) {
+            return;
+        }
+        Trace.endSection();
+        record(phase.name, phase.start, SystemClock.elapsedRealtimeNanos());
+    }
+
+    /**
+     * Marks a point in time without a duration.
+     */
+    public static void mark(String name) {
+        if (mFinished) {
+            return;
+        }
+        Trace.beginSection(name);
+        Trace.endSection();
+        long now = SystemClock.elapsedRealtimeNanos();
+        record(name, now, now);
+    }
+
+    /**
+     * Called by the game once it has drawn its first frame, writes the timeline on a background thread.
+     */
+    public static void finish() {
+        if (mFinished) {
+            return;
+        }
+        mark("First frame");
+        mFinished = true;
+
+        final Context context = mContext;
+        if (context == null) {
+            Log.w(TAG, "Timeline was never started, not writing it");
+            return;
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write(context);
+            }
+        }, TAG).start();
+    }
+
+    private static void record(String name, long start, long end) {
+        synchronized (mEvents) {
+            if (mFinished) {
+                return;
+            }
+            int tid = Process.myTid();
+            mEvents.add(new Event(name, tid, start, end));
+            if (!mThreadNames.containsKey(tid)) {
+                mThreadNames.put(tid, Thread.currentThread().getName());
+            }
+        }
+    }
+
+    private static void write(Context context) {
+        String json = toJson(context);
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write " + file, e);
+            return;
+        }
+        Log.i(TAG, "Wrote startup timeline to " + file);
+    }
+
+    private static String toJson(Context context) {
+        int pid = Process.myPid();
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"traceEvents\":[");
+
+        synchronized (mEvents) {
+            boolean first = true;
+            for (Map.Entry<Integer, String> thread : mThreadNames.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                sb.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":").append(pid)
+                    .append(",\"tid\":").append(thread.getKey())
+                    .append(",\"args\":{\"name\":");
+                appendString(sb, thread.getValue());
+                sb.append("}}");
+            }
+            for (Event event : mEvents) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                sb.append("{\"name\":");
+                appendString(sb, event.name);
+                if (event.end == event.start) {
+                    sb.append(",\"ph\":\"i\",\"s\":\"t\"");
+                } else {
+                    sb.append(",\"ph\":\"X\",\"dur\":").append(toMicros(event.end - event.start));
+                }
+                sb.append(",\"ts\":").append(toMicros(event.start - mOrigin))
+                    .append(",\"pid\":").append(pid)
+                    .append(",\"tid\":").append(event.tid)
+                    .append('}');
+            }
+        }
+
+        sb.append("],\"otherData\":{\"versionName\":");
+        String versionName = null;
+        int versionCode = 0;
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            versionName = info.versionName;
+            versionCode = info.versionCode;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Unable to read the package version", e);
+        }
+        appendString(sb, versionName);
+        sb.append(",\"versionCode\":").append(versionCode);
+        sb.append(",\"device\":");
+        appendString(sb, Build.MANUFACTURER + " " + Build.MODEL);
+        sb.append(",\"sdk\":").append(Build.VERSION.SDK_INT);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            // Time the process spent starting before the application was created, negative as it is before ts 0
+            long processStart = Process.getStartElapsedRealtime() * 1000000L;
+            sb.append(",\"processStartUs\":").append(toMicros(processStart - mOrigin));
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos / 1000;
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,93 @@
+package org.libsdl.app;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.SurfaceTexture;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+
+import org.robolectric.annotation.internal.DoNotInstrument;
+
+/**
+ * Surface holder of a replayed engine, its size and when a canvas was last posted to it are tracked.
+ */
+@DoNotInstrument
+class FakeSurfaceHolder implements SurfaceHolder {
+    private final Rect mFrame = new Rect();
+    private Surface mSurface;
+    private long mLastPostTime;
+
+    void setSize(int width, int height) {
+        mFrame.set(0, 0, width, height);
+    }
+
+    /**
+     * @return the System.nanoTime a canvas was last posted at, 0 if none has been.
+     */
+    long getLastPostTime() {
+        return mLastPostTime;
+    }
+
+    @Override
+    public void addCallback(Callback callback) {
+    }
+
+    @Override
+    public void removeCallback(Callback callback) {
+    }
+
+    @Override
+    public boolean isCreating() {
+        return false;
+    }
+
+    @Override
+    public void setType(int type) {
+    }
+
+    @Override
+    public void setFixedSize(int width, int height) {
+        setSize(width, height);
+    }
+
+    @Override
+    public void setSizeFromLayout() {
+    }
+
+    @Override
+    public void setFormat(int format) {
+    }
+
+    @Override
+    public void setKeepScreenOn(boolean screenOn) {
+    }
+
+    @Override
+    public Canvas lockCanvas() {
+        return new Canvas(Bitmap.createBitmap(mFrame.width(), mFrame.height(), Bitmap.Config.ARGB_8888));
+    }
+
+    @Override
+    public Canvas lockCanvas(Rect dirty) {
+        return lockCanvas();
+    }
+
+    @Override
+    public void unlockCanvasAndPost(Canvas canvas) {
+        mLastPostTime = System.nanoTime();
+    }
+
+    @Override
+    public Rect getSurfaceFrame() {
+        return mFrame;
+    }
+
+    @Override
+    public synchronized Surface getSurface() {
+        if (mSurface == null) {
+            mSurface = new Surface(new SurfaceTexture(0));
+        }
+        return mSurface;
+    }
+}
@@ -0,0 +1,85 @@
+package org.libsdl.app;
+
+import android.app.Application;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.internal.DoNotInstrument;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays the lifecycle sequences in resources/lifecycle, which follow the order the wallpaper framework calls the
+ * service and its engines in, and fails on deadlocks, on a second nativeInit and when the game is slow to draw. The
+ * service is the shipped io.openrct2.SDLActivity, with its startup pipeline and hidden ticking.
+ *
+ * Measurements are printed and, when the lifecycle.resultsDir system property is set, written there as JSON.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(sdk = 28, application = Application.class, instrumentedPackages = {"org.libsdl.app", "io.openrct2"},
+    shadows = {ShadowSDLActivity.class, ShadowOpenRCT2Activity.class, ShadowStartupPipeline.class,
+        ShadowWallpaperEngine.class})
+@DoNotInstrument
+public class LifecycleReplayTest {
+    private static final String[] SEQUENCES = {
+        "cold-start",
+        "set-from-picker",
+        "cancel-preview",
+        "preview-snapshot",
+        "screen-off-on",
+        "rotate",
+        "surface-recreated",
+        "service-restart",
+    };
+
+    // With the game stubbed out these only cover the Java side, they are loose enough for a busy CI machine
+    private static final double MAX_TIME_TO_FIRST_FRAME_MS = 1000;
+    private static final double MAX_TIME_TO_RESUME_MS = 250;
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0}")
+    public static List<Object[]> getSequences() {
+        List<Object[]> sequences = new ArrayList<>();
+        for (String sequence : SEQUENCES) {
+            sequences.add(new Object[]{sequence});
+        }
+        return sequences;
+    }
+
+    private final String mSequence;
+
+    public LifecycleReplayTest(String sequence) {
+        mSequence = sequence;
+    }
+
+    @Test
+    public void replay() throws IOException {
+        LifecycleReplayer replayer = new LifecycleReplayer(mSequence);
+        try (InputStream in = getClass().getResourceAsStream("/lifecycle/" + mSequence + ".seq")) {
+            assertNotNull("Missing sequence " + mSequence, in);
+            replayer.replay(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        }
+        replayer.checkMaximum(LifecycleReplayer.TIME_TO_FIRST_FRAME, MAX_TIME_TO_FIRST_FRAME_MS);
+        replayer.checkMaximum(LifecycleReplayer.TIME_TO_RESUME, MAX_TIME_TO_RESUME_MS);
+
+        System.out.print(replayer.report());
+        String resultsDir = System.getProperty("lifecycle.resultsDir");
+        if (resultsDir != null) {
+            replayer.writeJson(new File(resultsDir));
+        }
+
+        List<String> failures = replayer.getFailures();
+        assertTrue(String.join("\n", failures), failures.isEmpty());
+    }
+}
@@ -0,0 +1,380 @@
+package org.libsdl.app;
+
+import android.graphics.Bitmap;
+import android.graphics.PixelFormat;
+import android.service.wallpaper.WallpaperService;
+
+import org.robolectric.Robolectric;
+import org.robolectric.android.controller.ServiceController;
+import org.robolectric.annotation.internal.DoNotInstrument;
+import org.robolectric.shadow.api.Shadow;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replays a sequence of wallpaper service and engine callbacks against io.openrct2.SDLActivity, with
+ * ShadowSDLActivity as the game, and measures how long the game takes to draw after a surface is handed to it or the
+ * wallpaper is shown.
+ *
+ * A sequence has one step per line, blank lines and lines starting with # are skipped:
+ * <pre>
+ * create                          creates the service
+ * engine NAME [preview]           creates an engine with a surface holder
+ * surface NAME WIDTH HEIGHT       creates and sizes the engine's surface
+ * resize NAME WIDTH HEIGHT        sizes the engine's surface again
+ * visible NAME true|false         shows or hides the engine
+ * destroy-surface NAME            destroys the engine's surface
+ * destroy-engine NAME             destroys the engine
+ * frame                           waits for a frame after the last surface, resize or visible true
+ * hidden                          checks that the game keeps ticking without drawing
+ * paused                          checks that the game neither ticks nor draws
+ * snapshot                        saves a still of the park for previews, as the running wallpaper does
+ * still NAME                      checks that the engine shows the still instead of the game
+ * destroy                         destroys the service
+ * </pre>
+ * Every step runs on the main thread as the framework would call it, a step which does not return within
+ * STEP_TIMEOUT_MS is reported as a deadlock along with the stacks of all threads.
+ */
+@DoNotInstrument
+class LifecycleReplayer {
+    static final String TIME_TO_FIRST_FRAME = "time-to-first-frame";
+    static final String TIME_TO_RESUME = "time-to-resume";
+
+    private static final long STEP_TIMEOUT_MS = 5000;
+    private static final long FRAME_TIMEOUT_MS = 2000;
+
+    // Checks and set up rather than framework callbacks
+    private static final List<String> UNTIMED_STEPS = Arrays.asList("frame", "hidden", "paused", "snapshot", "still");
+
+    // Where io.openrct2.PreviewSnapshot keeps its still
+    private static final String SNAPSHOT_FILE_NAME = "preview.jpg";
+
+    private final String mName;
+    private final List<String> mFailures = new ArrayList<>();
+    // Milliseconds, by metric
+    private final Map<String, List<Double>> mMeasurements = new LinkedHashMap<>();
+
+    private ServiceController<io.openrct2.SDLActivity> mService;
+    private final Map<String, WallpaperService.Engine> mEngines = new HashMap<>();
+    private final Map<String, FakeSurfaceHolder> mHolders = new HashMap<>();
+
+    // What the next frame step measures, and since when
+    private String mPendingMetric;
+    private long mPendingStart;
+
+    LifecycleReplayer(String name) {
+        mName = name;
+    }
+
+    void replay(BufferedReader reader) throws IOException {
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            runStep(mName + ":" + lineNumber + " " + line, line.split("\\s+"));
+        }
+
+        if (mService != null) {
+            runStep(mName + ": destroy at the end", new String[]{"destroy"});
+        }
+        for (String error : ShadowSDLActivity.getErrors()) {
+            fail(mName + ": " + error);
+        }
+    }
+
+    private void runStep(final String step, String[] words) {
+        final Thread caller = Thread.currentThread();
+        final AtomicBoolean done = new AtomicBoolean();
+        Thread watchdog = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(STEP_TIMEOUT_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (!done.get()) {
+                    fail(step + ": deadlocked, did not return within " + STEP_TIMEOUT_MS + " ms\n" + dumpThreads());
+                    // Lets a thread blocked in join or wait carry on
+                    caller.interrupt();
+                }
+            }
+        }, "LifecycleWatchdog");
+        watchdog.start();
+
+        long start = System.nanoTime();
+        try {
+            runCommand(step, words);
+        } catch (InterruptedException e) {
+            // Already reported by the watchdog
+        } finally {
+            done.set(true);
+            watchdog.interrupt();
+            Thread.interrupted();
+        }
+        if (!UNTIMED_STEPS.contains(words[0])) {
+            record("callback " + words[0], start, System.nanoTime());
+        }
+    }
+
+    private void runCommand(String step, String[] words) throws InterruptedException {
+        String command = words[0];
+        switch (command) {
+            case "create":
+                if (mService != null) {
+                    throw new IllegalArgumentException(step + ": the service has already been created");
+                }
+                ShadowSDLActivity.onServiceCreated();
+                mService = Robolectric.buildService(io.openrct2.SDLActivity.class).create();
+                break;
+            case "engine": {
+                WallpaperService.Engine engine = mService.get().onCreateEngine();
+                ShadowWallpaperEngine shadow = Shadow.extract(engine);
+                shadow.setPreview(words.length > 2 && words[2].equals("preview"));
+                FakeSurfaceHolder holder = new FakeSurfaceHolder();
+                mEngines.put(words[1], engine);
+                mHolders.put(words[1], holder);
+                engine.onCreate(holder);
+                break;
+            }
+            case "surface": {
+                FakeSurfaceHolder holder = getHolder(step, words[1]);
+                holder.setSize(Integer.parseInt(words[2]), Integer.parseInt(words[3]));
+                startMeasuring(TIME_TO_FIRST_FRAME);
+                getEngine(step, words[1]).onSurfaceCreated(holder);
+                surfaceChanged(step, words);
+                break;
+            }
+            case "resize":
+                getHolder(step, words[1]).setSize(Integer.parseInt(words[2]), Integer.parseInt(words[3]));
+                startMeasuring(TIME_TO_FIRST_FRAME);
+                surfaceChanged(step, words);
+                break;
+            case "visible": {
+                boolean visible = Boolean.parseBoolean(words[2]);
+                // The first frame on a new surface is measured from the surface, not from it being shown
+                if (visible && mPendingMetric == null) {
+                    startMeasuring(TIME_TO_RESUME);
+                }
+                getEngine(step, words[1]).onVisibilityChanged(visible);
+                break;
+            }
+            case "destroy-surface":
+                getEngine(step, words[1]).onSurfaceDestroyed(getHolder(step, words[1]));
+                break;
+            case "destroy-engine":
+                getEngine(step, words[1]).onDestroy();
+                mEngines.remove(words[1]);
+                mHolders.remove(words[1]);
+                break;
+            case "frame":
+                awaitFrame(step);
+                break;
+            case "hidden":
+            case "paused": {
+                // Gives a game that is wrongly still running the time to draw, and a hidden one the time to tick
+                long start = System.nanoTime();
+                Thread.sleep(3 * ShadowSDLActivity.FRAME_INTERVAL_MS);
+                if (ShadowSDLActivity.isDrawing()) {
+                    fail(step + ": the game is still drawing");
+                }
+                boolean ticking = ShadowSDLActivity.getLastTickTime() > start;
+                if (command.equals("hidden") && !ticking) {
+                    fail(step + ": the game stopped ticking while hidden");
+                } else if (command.equals("paused") && ticking) {
+                    fail(step + ": the game is still ticking");
+                }
+                break;
+            }
+            case "snapshot":
+                saveSnapshot(step);
+                break;
+            case "still":
+                checkStill(step, words[1]);
+                break;
+            case "destroy":
+                mService.destroy();
+                mService = null;
+                mEngines.clear();
+                mHolders.clear();
+                if (!ShadowSDLActivity.awaitStopped(STEP_TIMEOUT_MS)) {
+                    fail(step + ": the game thread is still running after onDestroy\n" + dumpThreads());
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(step + ": unknown step " + command);
+        }
+    }
+
+    private void surfaceChanged(String step, String[] words) {
+        FakeSurfaceHolder holder = getHolder(step, words[1]);
+        int width = holder.getSurfaceFrame().width();
+        int height = holder.getSurfaceFrame().height();
+        getEngine(step, words[1]).onSurfaceChanged(holder, PixelFormat.RGBX_8888, width, height);
+    }
+
+    private void saveSnapshot(String step) {
+        File file = new File(mService.get().getFilesDir(), SNAPSHOT_FILE_NAME);
+        Bitmap bitmap = Bitmap.createBitmap(540, 960, Bitmap.Config.ARGB_8888);
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 85, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(step + ": unable to write " + file, e);
+        }
+    }
+
+    private void checkStill(String step, String name) {
+        FakeSurfaceHolder holder = getHolder(step, name);
+        if (SDLActivity.getGameSurfaceHolder() == holder) {
+            fail(step + ": the game took the surface over instead of showing the still");
+        } else if (holder.getLastPostTime() == 0) {
+            fail(step + ": no still shown");
+        } else if (mPendingMetric != null) {
+            // The still is the first frame of its surface
+            record(mPendingMetric, mPendingStart, holder.getLastPostTime());
+            mPendingMetric = null;
+        }
+    }
+
+    private void startMeasuring(String metric) {
+        mPendingMetric = metric;
+        mPendingStart = System.nanoTime();
+    }
+
+    private void awaitFrame(String step) throws InterruptedException {
+        if (mPendingMetric == null) {
+            throw new IllegalArgumentException(step + ": nothing to wait for");
+        }
+        long frame = ShadowSDLActivity.awaitFrame(mPendingStart, FRAME_TIMEOUT_MS);
+        if (frame < 0) {
+            fail(step + ": no frame drawn within " + FRAME_TIMEOUT_MS + " ms");
+        } else {
+            record(mPendingMetric, mPendingStart, frame);
+        }
+        mPendingMetric = null;
+    }
+
+    private WallpaperService.Engine getEngine(String step, String name) {
+        WallpaperService.Engine engine = mEngines.get(name);
+        if (engine == null) {
+            throw new IllegalArgumentException(step + ": no engine " + name);
+        }
+        return engine;
+    }
+
+    private FakeSurfaceHolder getHolder(String step, String name) {
+        getEngine(step, name);
+        return mHolders.get(name);
+    }
+
+    private void record(String metric, long start, long end) {
+        List<Double> values = mMeasurements.get(metric);
+        if (values == null) {
+            values = new ArrayList<>();
+            mMeasurements.put(metric, values);
+        }
+        values.add((end - start) / 1000000.0);
+    }
+
+    /**
+     * Adds a failure for every measurement of metric above maxMs.
+     */
+    void checkMaximum(String metric, double maxMs) {
+        List<Double> values = mMeasurements.get(metric);
+        if (values == null) {
+            return;
+        }
+        for (double value : values) {
+            if (value > maxMs) {
+                fail(String.format(Locale.US, "%s: %s took %.3f ms, more than %.0f ms",
+                    mName, metric, value, maxMs));
+            }
+        }
+    }
+
+    private void fail(String message) {
+        synchronized (mFailures) {
+            mFailures.add(message);
+        }
+    }
+
+    List<String> getFailures() {
+        synchronized (mFailures) {
+            return new ArrayList<>(mFailures);
+        }
+    }
+
+    String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "%s%n%-28s %6s %10s %10s%n", mName, "Metric (ms)", "count", "median",
+            "max"));
+        for (Map.Entry<String, List<Double>> entry : mMeasurements.entrySet()) {
+            List<Double> values = new ArrayList<>(entry.getValue());
+            Collections.sort(values);
+            sb.append(String.format(Locale.US, "%-28s %6d %10.3f %10.3f%n", entry.getKey(), values.size(),
+                values.get(values.size() / 2), values.get(values.size() - 1)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes every measurement to NAME.json in directory, for comparing runs.
+     */
+    void writeJson(File directory) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"sequence\":\"").append(mName).append("\",\"measurementsMs\":{");
+        boolean first = true;
+        for (Map.Entry<String, List<Double>> entry : mMeasurements.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append('"').append(entry.getKey()).append("\":[");
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                if (i != 0) {
+                    sb.append(',');
+                }
+                sb.append(String.format(Locale.US, "%.3f", entry.getValue().get(i)));
+            }
+            sb.append(']');
+        }
+        sb.append("},\"failures\":").append(getFailures().size()).append('}');
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        try (OutputStream out = new FileOutputStream(new File(directory, mName + ".json"))) {
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String dumpThreads() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+            sb.append('"').append(entry.getKey().getName()).append("\" ").append(entry.getKey().getState())
+                .append('\n');
+            for (StackTraceElement element : entry.getValue()) {
+                sb.append("    at ").append(element).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package org.libsdl.app;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.internal.DoNotInstrument;
+
+/**
+ * Stands in for the natives which io.openrct2.SDLActivity adds, so that the game of ShadowSDLActivity stops drawing
+ * while hidden and keeps ticking at the hidden tick rate instead of being paused. The other natives do nothing.
+ */
+@Implements(className = "io.openrct2.SDLActivity", isInAndroidSdk = false)
+@DoNotInstrument
+public class ShadowOpenRCT2Activity extends ShadowSDLActivity {
+    @Implementation
+    protected static void nativeSetHidden(boolean hidden) {
+        ShadowSDLActivity.setHidden(hidden);
+    }
+
+    @Implementation
+    protected static void nativeSetHiddenTickRate(float ticksPerSecond) {
+        ShadowSDLActivity.setHiddenTickRate(ticksPerSecond);
+    }
+}
@@ -0,0 +1,252 @@
+package org.libsdl.app;
+
+import android.view.Surface;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.Resetter;
+import org.robolectric.annotation.internal.DoNotInstrument;
+import org.robolectric.shadows.ShadowService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stands in for the native game behind the natives of SDLActivity. nativeInit runs a game loop which ticks every
+ * FRAME_INTERVAL_MS while it is not paused, and draws a frame as well while it has a surface and is not hidden. It
+ * fetches the surface from getNativeSurface whenever it changes, as SDL does. While hidden, see
+ * ShadowOpenRCT2Activity, it only ticks if the hidden tick rate is above 0.
+ *
+ * Misuse of the native side that would go unnoticed on a device, such as starting a second game, is collected as
+ * errors. Natives which are not implemented here do nothing.
+ */
+@Implements(value = SDLActivity.class, isInAndroidSdk = false)
+@DoNotInstrument
+public class ShadowSDLActivity extends ShadowService {
+    static final long FRAME_INTERVAL_MS = 16;
+
+    private static final Object mLock = new Object();
+    private static final List<String> mErrors = new ArrayList<>();
+
+    // Per service, reset by onServiceCreated
+    private static int mInitCount;
+    private static boolean mQuit;
+    private static boolean mPaused;
+    private static boolean mHidden;
+    private static float mHiddenTickRate;
+    private static boolean mSurfaceReady;
+    private static int mSurfaceGeneration;
+
+    private static int mRunningCount;
+    private static long mLastFrameTime;
+    private static long mLastTickTime;
+
+    @Resetter
+    public static void reset() {
+        synchronized (mLock) {
+            mErrors.clear();
+            mRunningCount = 0;
+            mLastFrameTime = 0;
+            mLastTickTime = 0;
+            mHiddenTickRate = 0;
+            onServiceCreated();
+        }
+    }
+
+    /**
+     * Called before each service is created, the game of a previous service has been quit by then.
+     */
+    static void onServiceCreated() {
+        synchronized (mLock) {
+            mInitCount = 0;
+            mQuit = false;
+            mPaused = false;
+            mHidden = false;
+            mSurfaceReady = false;
+            mSurfaceGeneration = 0;
+        }
+    }
+
+    @Implementation
+    protected void loadLibraries() {
+        // Every native used by the lifecycle is implemented here
+    }
+
+    @Implementation
+    protected static int nativeInit(Object arguments) {
+        synchronized (mLock) {
+            mInitCount++;
+            mRunningCount++;
+            if (mRunningCount > 1) {
+                error("nativeInit called while another game is running");
+            } else if (mInitCount > 1) {
+                error("nativeInit called " + mInitCount + " times by one service");
+            }
+        }
+        try {
+            runGame();
+        } finally {
+            synchronized (mLock) {
+                mRunningCount--;
+                mLock.notifyAll();
+            }
+        }
+        return 0;
+    }
+
+    private static void runGame() {
+        int surfaceGeneration = 0;
+        synchronized (mLock) {
+            while (!mQuit) {
+                if (!mPaused && (!mHidden || mHiddenTickRate > 0)) {
+                    mLastTickTime = System.nanoTime();
+                }
+                if (mSurfaceReady && !mPaused && !mHidden) {
+                    if (surfaceGeneration != mSurfaceGeneration) {
+                        surfaceGeneration = mSurfaceGeneration;
+                        fetchSurface();
+                    }
+                    mLastFrameTime = System.nanoTime();
+                    mLock.notifyAll();
+                }
+                try {
+                    mLock.wait(FRAME_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    error("Game thread interrupted");
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void fetchSurface() {
+        try {
+            Surface surface = SDLActivity.getNativeSurface();
+            if (surface == null) {
+                error("getNativeSurface returned null after onNativeSurfaceChanged");
+            }
+        } catch (RuntimeException e) {
+            error("getNativeSurface failed after onNativeSurfaceChanged: " + e);
+        }
+    }
+
+    @Implementation
+    protected static void nativeQuit() {
+        synchronized (mLock) {
+            mQuit = true;
+            mLock.notifyAll();
+        }
+    }
+
+    @Implementation
+    protected static void nativePause() {
+        synchronized (mLock) {
+            mPaused = true;
+        }
+    }
+
+    @Implementation
+    protected static void nativeResume() {
+        synchronized (mLock) {
+            mPaused = false;
+            mLock.notifyAll();
+        }
+    }
+
+    @Implementation
+    protected static void onNativeSurfaceChanged() {
+        synchronized (mLock) {
+            mSurfaceReady = true;
+            mSurfaceGeneration++;
+            mLock.notifyAll();
+        }
+    }
+
+    @Implementation
+    protected static void onNativeSurfaceDestroyed() {
+        synchronized (mLock) {
+            mSurfaceReady = false;
+        }
+    }
+
+    static void setHidden(boolean hidden) {
+        synchronized (mLock) {
+            mHidden = hidden;
+            mLock.notifyAll();
+        }
+    }
+
+    static void setHiddenTickRate(float ticksPerSecond) {
+        synchronized (mLock) {
+            mHiddenTickRate = ticksPerSecond;
+        }
+    }
+
+    private static void error(String message) {
+        synchronized (mLock) {
+            mErrors.add(message);
+        }
+    }
+
+    static List<String> getErrors() {
+        synchronized (mLock) {
+            return new ArrayList<>(mErrors);
+        }
+    }
+
+    /**
+     * Waits for a frame drawn after the given System.nanoTime.
+     *
+     * @return the time the frame was drawn at, or -1 if none was drawn within timeoutMs.
+     */
+    static long awaitFrame(long after, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1000000L;
+        synchronized (mLock) {
+            while (mLastFrameTime <= after) {
+                long remaining = (deadline - System.nanoTime()) / 1000000L;
+                if (remaining <= 0) {
+                    return -1;
+                }
+                mLock.wait(remaining);
+            }
+            return mLastFrameTime;
+        }
+    }
+
+    /**
+     * Waits for every game to return from nativeInit.
+     *
+     * @return false if one is still running after timeoutMs.
+     */
+    static boolean awaitStopped(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1000000L;
+        synchronized (mLock) {
+            while (mRunningCount > 0) {
+                long remaining = (deadline - System.nanoTime()) / 1000000L;
+                if (remaining <= 0) {
+                    return false;
+                }
+                mLock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return whether a game is running which would draw its next frame.
+     */
+    static boolean isDrawing() {
+        synchronized (mLock) {
+            return mRunningCount > 0 && mSurfaceReady && !mPaused && !mHidden;
+        }
+    }
+
+    /**
+     * @return the time the game last ticked at, drawn or not, 0 if it never has.
+     */
+    static long getLastTickTime() {
+        synchronized (mLock) {
+            return mLastTickTime;
+        }
+    }
+}
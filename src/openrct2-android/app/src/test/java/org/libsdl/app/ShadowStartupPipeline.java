@@ -0,0 +1,26 @@
+package org.libsdl.app;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.Resetter;
+import org.robolectric.annotation.internal.DoNotInstrument;
+import org.robolectric.util.ReflectionHelpers;
+
+/**
+ * Lets io.openrct2.StartupPipeline run its stages on its own threads as it would on a device, with the libraries and
+ * the natives it calls left out. Each test starts with a new pipeline, as a new process would.
+ */
+@Implements(className = "io.openrct2.StartupPipeline", isInAndroidSdk = false)
+@DoNotInstrument
+public class ShadowStartupPipeline {
+    @Resetter
+    public static void reset() {
+        ReflectionHelpers.setStaticField(ReflectionHelpers.loadClass(ShadowStartupPipeline.class.getClassLoader(),
+            "io.openrct2.StartupPipeline"), "_instance", null);
+    }
+
+    @Implementation
+    protected static void loadLibrary(String lib) {
+        // Every native used by the lifecycle is shadowed
+    }
+}
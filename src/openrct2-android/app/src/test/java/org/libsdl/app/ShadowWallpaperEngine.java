@@ -0,0 +1,24 @@
+package org.libsdl.app;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.internal.DoNotInstrument;
+
+/**
+ * Engines are never attached to the wallpaper manager when replayed, so whether one is a preview is set by the
+ * sequence instead.
+ */
+@Implements(className = "android.service.wallpaper.WallpaperService$Engine")
+@DoNotInstrument
+public class ShadowWallpaperEngine {
+    private boolean mPreview;
+
+    @Implementation
+    protected boolean isPreview() {
+        return mPreview;
+    }
+
+    void setPreview(boolean preview) {
+        mPreview = preview;
+    }
+}
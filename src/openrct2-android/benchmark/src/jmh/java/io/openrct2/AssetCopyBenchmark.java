@@ -0,0 +1,74 @@
+package io.openrct2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracting every entry of an archive with AssetExtractor.copy, the way copyAssets extracts the APK's assets when
+ * they are not read in place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AssetCopyBenchmark {
+    @Param({"100", "1000", "20000"})
+    public int numEntries;
+
+    @Param({"STORED", "DEFLATED", "MIXED"})
+    public TestArchives.Compression compression;
+
+    private File _directory;
+    private ZipFile _zipFile;
+    private List<ZipEntry> _entries;
+    private List<File> _extractedFiles;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        _directory = TestArchives.createTempDirectory();
+        File file = new File(_directory, "assets.zip");
+        TestArchives.write(file, numEntries, compression);
+        _zipFile = new ZipFile(file);
+
+        File extractedDirectory = new File(_directory, "extracted");
+        _entries = new ArrayList<>(numEntries);
+        _extractedFiles = new ArrayList<>(numEntries);
+        Enumeration<? extends ZipEntry> entries = _zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            File extractedFile = new File(extractedDirectory, entry.getName());
+            extractedFile.getParentFile().mkdirs();
+            _entries.add(entry);
+            _extractedFiles.add(extractedFile);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        _zipFile.close();
+        TestArchives.deleteRecursively(_directory);
+    }
+
+    @Benchmark
+    public void copyAll() throws IOException {
+        for (int i = 0; i < _entries.size(); i++) {
+            AssetExtractor.copy(_zipFile.getInputStream(_entries.get(i)), _extractedFiles.get(i));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.openrct2;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates archives laid out like the bundled OpenRCT2 data, with a fixed seed so every run reads the same bytes.
+ */
+final class TestArchives {
+    enum Compression {
+        STORED,
+        DEFLATED,
+        // Alternates between both, like the APK where some extensions are kept uncompressed
+        MIXED,
+    }
+
+    private static final long SEED = 0x0123456789ABCDEFL;
+    private static final int MIN_ENTRY_SIZE = 256;
+    private static final int MAX_ENTRY_SIZE = 16 * 1024;
+    private static final String[] DIRECTORIES = {
+        "object/rct2/ride", "object/rct2/scenery_small", "language", "sequence",
+    };
+
+    private TestArchives() {
+    }
+
+    static File createTempDirectory() throws IOException {
+        return Files.createTempDirectory("openrct2-benchmark").toFile();
+    }
+
+    /**
+     * @return the names of the entries written to file, in archive order.
+     */
+    static List<String> write(File file, int numEntries, Compression compression) throws IOException {
+        Random random = new Random(SEED);
+        List<String> names = new ArrayList<>(numEntries);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < numEntries; i++) {
+                String name = String.format("%s/entry%05d.dat", DIRECTORIES[i % DIRECTORIES.length], i);
+                byte[] data = createPayload(random);
+
+                ZipEntry entry = new ZipEntry(name);
+                boolean stored = compression == Compression.STORED || (compression == Compression.MIXED && i % 2 == 0);
+                if (stored) {
+                    // ZipOutputStream needs the size and CRC of stored entries up front
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(data.length);
+                    entry.setCompressedSize(data.length);
+                    entry.setCrc(crc.getValue());
+                } else {
+                    entry.setMethod(ZipEntry.DEFLATED);
+                }
+
+                out.putNextEntry(entry);
+                out.write(data);
+                out.closeEntry();
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Payloads repeat a small alphabet, so that they deflate about as well as the game's object data.
+     */
+    private static byte[] createPayload(Random random) {
+        byte[] data = new byte[MIN_ENTRY_SIZE + random.nextInt(MAX_ENTRY_SIZE - MIN_ENTRY_SIZE + 1)];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (random.nextInt(16) * random.nextInt(16));
+        }
+        return data;
+    }
+
+    static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
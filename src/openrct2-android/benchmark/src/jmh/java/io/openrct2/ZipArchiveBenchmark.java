@@ -0,0 +1,103 @@
+package io.openrct2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The calls native code makes into ZipArchive through ZipAndroid.cpp.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ZipArchiveBenchmark {
+    @Param({"100", "1000", "20000"})
+    public int numEntries;
+
+    @Param({"STORED", "DEFLATED", "MIXED"})
+    public TestArchives.Compression compression;
+
+    private File _directory;
+    private File _file;
+    private ZipArchive _archive;
+    private String[] _lookupNames;
+    private int[] _indices;
+    private int _next;
+
+    // Stands in for the buffer native code allocates and wraps with NewDirectByteBuffer
+    private ByteBuffer _buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        _directory = TestArchives.createTempDirectory();
+        _file = new File(_directory, "assets.zip");
+        List<String> names = TestArchives.write(_file, numEntries, compression);
+        _archive = new ZipArchive(_file.getPath());
+
+        // Native code looks entries up by the path the game asks for, which may differ in case
+        _lookupNames = new String[names.size()];
+        _indices = new int[names.size()];
+        int maxSize = 0;
+        for (int i = 0; i < names.size(); i++) {
+            _lookupNames[i] = i % 2 == 0 ? names.get(i) : names.get(i).toUpperCase(Locale.ROOT);
+            _indices[i] = _archive.getFileIndex(names.get(i));
+            maxSize = Math.max(maxSize, (int) _archive.getFileSize(_indices[i]));
+        }
+        _buffer = ByteBuffer.allocateDirect(maxSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        _archive.close();
+        TestArchives.deleteRecursively(_directory);
+    }
+
+    private int nextEntry() {
+        int entry = _next;
+        _next = (_next + 1) % _indices.length;
+        return entry;
+    }
+
+    /**
+     * Opening an archive indexes its central directory, then native code lists every entry.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] openAndEnumerate() throws IOException {
+        ZipArchive archive = new ZipArchive(_file.getPath());
+        try {
+            archive.getFileSizes();
+            archive.getFileCrcs();
+            return archive.getFileNames();
+        } finally {
+            archive.close();
+        }
+    }
+
+    @Benchmark
+    public int getFileIndex() {
+        return _archive.getFileIndex(_lookupNames[nextEntry()]);
+    }
+
+    @Benchmark
+    public long getFile() throws IOException {
+        int index = _indices[nextEntry()];
+        _buffer.clear();
+        _buffer.limit((int) _archive.getFileSize(index));
+        return _archive.getFile(index, _buffer);
+    }
+}
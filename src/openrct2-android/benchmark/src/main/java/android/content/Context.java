@@ -0,0 +1,19 @@
+package android.content;
+
+import android.content.pm.PackageManager;
+import android.content.res.AssetManager;
+
+/**
+ * Desktop stand-in for the Android class, only what AssetExtractor uses.
+ */
+public abstract class Context {
+    public static final int MODE_PRIVATE = 0;
+
+    public abstract AssetManager getAssets();
+
+    public abstract SharedPreferences getSharedPreferences(String name, int mode);
+
+    public abstract PackageManager getPackageManager();
+
+    public abstract String getPackageName();
+}
@@ -0,0 +1,16 @@
+package android.content;
+
+/**
+ * Desktop stand-in for the Android interface, only what AssetExtractor uses.
+ */
+public interface SharedPreferences {
+    interface Editor {
+        Editor putString(String key, String value);
+
+        void apply();
+    }
+
+    String getString(String key, String defValue);
+
+    Editor edit();
+}
@@ -0,0 +1,9 @@
+package android.content.pm;
+
+/**
+ * Desktop stand-in for the Android class, only what AssetExtractor uses.
+ */
+public class PackageInfo {
+    public int versionCode;
+    public long lastUpdateTime;
+}
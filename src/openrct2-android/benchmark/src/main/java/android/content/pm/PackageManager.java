@@ -0,0 +1,11 @@
+package android.content.pm;
+
+/**
+ * Desktop stand-in for the Android class, only what AssetExtractor uses.
+ */
+public abstract class PackageManager {
+    public static class NameNotFoundException extends Exception {
+    }
+
+    public abstract PackageInfo getPackageInfo(String packageName, int flags) throws NameNotFoundException;
+}
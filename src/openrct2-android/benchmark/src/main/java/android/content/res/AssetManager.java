@@ -0,0 +1,15 @@
+package android.content.res;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Desktop stand-in for the Android class, only what AssetExtractor uses.
+ */
+public abstract class AssetManager {
+    public static final int ACCESS_STREAMING = 2;
+
+    public abstract InputStream open(String fileName) throws IOException;
+
+    public abstract InputStream open(String fileName, int accessMode) throws IOException;
+}
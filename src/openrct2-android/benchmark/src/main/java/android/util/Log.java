@@ -0,0 +1,41 @@
+package android.util;
+
+/**
+ * Desktop stand-in for the Android class, only warnings and errors are printed.
+ */
+public final class Log {
+    private Log() {
+    }
+
+    public static int v(String tag, String msg) {
+        return 0;
+    }
+
+    public static int d(String tag, String msg) {
+        return 0;
+    }
+
+    public static int w(String tag, String msg) {
+        return print(tag, msg, null);
+    }
+
+    public static int w(String tag, String msg, Throwable tr) {
+        return print(tag, msg, tr);
+    }
+
+    public static int e(String tag, String msg) {
+        return print(tag, msg, null);
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return print(tag, msg, tr);
+    }
+
+    private static int print(String tag, String msg, Throwable tr) {
+        System.err.println(tag + ": " + msg);
+        if (tr != null) {
+            tr.printStackTrace();
+        }
+        return 0;
+    }
+}
@@ -10,8 +10,8 @@
 #include "CursorRepository.h"
 
 #include <cmath>
+#include <openrct2/Context.h>
 #include <openrct2/common.h>
-#include <openrct2/config/Config.h>
 #include <openrct2/core/Guard.hpp>
 #include <openrct2/interface/Cursors.h>
 #include <vector>
@@ -27,7 +27,7 @@ CursorRepository::~CursorRepository()
 
 void CursorRepository::LoadCursors()
 {
-    SetCursorScale(static_cast<uint8_t>(round(gConfigGeneral.window_scale)));
+    SetCursorScale(static_cast<uint8_t>(round(context_get_window_scale())));
     SetCurrentCursor(CursorID::Arrow);
 }
 
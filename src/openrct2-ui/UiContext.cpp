@@ -15,6 +15,7 @@
 #include "WindowManager.h"
 #include "drawing/engines/DrawingEngineFactory.hpp"
 #include "input/ShortcutManager.h"
+#include "input/WallpaperInput.h"
 #include "interface/InGameConsole.h"
 #include "interface/Theme.h"
 #include "scripting/UiExtensions.h"
@@ -390,9 +391,14 @@ public:
                         }
                     }
                     break;
+                case SDL_RENDER_TARGETS_RESET:
+                case SDL_RENDER_DEVICE_RESET:
+                    // The window's contents were lost, e.g. the Android surface was recreated, so redraw it all
+                    gfx_invalidate_screen();
+                    break;
                 case SDL_MOUSEMOTION:
-                    _cursorState.position = { static_cast<int32_t>(e.motion.x / gConfigGeneral.window_scale),
-                                              static_cast<int32_t>(e.motion.y / gConfigGeneral.window_scale) };
+                    _cursorState.position = { static_cast<int32_t>(e.motion.x / context_get_window_scale()),
+                                              static_cast<int32_t>(e.motion.y / context_get_window_scale()) };
                     break;
                 case SDL_MOUSEWHEEL:
                     if (_inGameConsole.IsOpen())
@@ -408,8 +414,8 @@ public:
                     {
                         break;
                     }
-                    ScreenCoordsXY mousePos = { static_cast<int32_t>(e.button.x / gConfigGeneral.window_scale),
-                                                static_cast<int32_t>(e.button.y / gConfigGeneral.window_scale) };
+                    ScreenCoordsXY mousePos = { static_cast<int32_t>(e.button.x / context_get_window_scale()),
+                                                static_cast<int32_t>(e.button.y / context_get_window_scale()) };
                     switch (e.button.button)
                     {
                         case SDL_BUTTON_LEFT:
@@ -444,8 +450,8 @@ public:
                     {
                         break;
                     }
-                    ScreenCoordsXY mousePos = { static_cast<int32_t>(e.button.x / gConfigGeneral.window_scale),
-                                                static_cast<int32_t>(e.button.y / gConfigGeneral.window_scale) };
+                    ScreenCoordsXY mousePos = { static_cast<int32_t>(e.button.x / context_get_window_scale()),
+                                                static_cast<int32_t>(e.button.y / context_get_window_scale()) };
                     switch (e.button.button)
                     {
                         case SDL_BUTTON_LEFT:
@@ -586,6 +592,10 @@ public:
 
         _cursorState.any = _cursorState.left | _cursorState.middle | _cursorState.right;
 
+#ifdef __ANDROID__
+        WallpaperInput::Process();
+#endif
+
         // Updates the state of the keys
         int32_t numKeys = 256;
         _keysState = SDL_GetKeyboardState(&numKeys);
@@ -599,7 +609,8 @@ public:
     {
         char scaleQualityBuffer[4];
         _scaleQuality = ScaleQuality::SmoothNearestNeighbour;
-        if (gConfigGeneral.window_scale == std::floor(gConfigGeneral.window_scale))
+        const auto windowScale = context_get_window_scale();
+        if (windowScale == std::floor(windowScale))
         {
             _scaleQuality = ScaleQuality::NearestNeighbour;
         }
@@ -769,8 +780,9 @@ private:
     void OnResize(int32_t width, int32_t height)
     {
         // Scale the native window size to the game's canvas size
-        _width = static_cast<int32_t>(width / gConfigGeneral.window_scale);
-        _height = static_cast<int32_t>(height / gConfigGeneral.window_scale);
+        const auto windowScale = context_get_window_scale();
+        _width = static_cast<int32_t>(width / windowScale);
+        _height = static_cast<int32_t>(height / windowScale);
 
         drawing_engine_resize();
 
@@ -105,6 +105,11 @@ void AudioMixer::SetVolume(float volume)
     _volume = volume;
 }
 
+void AudioMixer::SetMuted(bool muted)
+{
+    _muted = muted;
+}
+
 SDLAudioSource* AudioMixer::AddSource(std::unique_ptr<SDLAudioSource> source)
 {
     std::lock_guard<std::mutex> guard(_mutex);
@@ -307,7 +312,7 @@ void AudioMixer::ApplyPan(const IAudioChannel* channel, void* buffer, size_t len
 
 int32_t AudioMixer::ApplyVolume(const IAudioChannel* channel, void* buffer, size_t len)
 {
-    float volumeAdjust = _volume;
+    float volumeAdjust = _muted ? 0.0f : _volume;
     volumeAdjust *= gConfigSound.master_sound_enabled ? (static_cast<float>(gConfigSound.master_volume) / 100.0f) : 0.0f;
 
     switch (channel->GetGroup())
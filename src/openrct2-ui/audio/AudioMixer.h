@@ -35,6 +35,7 @@ namespace OpenRCT2::Audio
         AudioFormat _format = {};
         std::list<ISDLAudioChannel*> _channels;
         float _volume = 1.0f;
+        bool _muted = false;
         float _adjustSoundVolume = 0.0f;
         float _adjustMusicVolume = 0.0f;
         uint8_t _settingSoundVolume = 0xFF;
@@ -55,6 +56,7 @@ namespace OpenRCT2::Audio
         IAudioChannel* Play(IAudioSource* source, int32_t loop, bool deleteondone) override;
         void Stop(IAudioChannel* channel) override;
         void SetVolume(float volume) override;
+        void SetMuted(bool muted) override;
         SDLAudioSource* AddSource(std::unique_ptr<SDLAudioSource> source);
 
         const AudioFormat& GetFormat() const;
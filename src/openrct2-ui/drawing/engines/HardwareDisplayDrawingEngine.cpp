@@ -11,12 +11,14 @@
 
 #include <SDL.h>
 #include <cmath>
+#include <openrct2/Context.h>
 #include <openrct2/Game.h>
 #include <openrct2/common.h>
 #include <openrct2/config/Config.h>
 #include <openrct2/drawing/IDrawingEngine.h>
 #include <openrct2/drawing/LightFX.h>
 #include <openrct2/drawing/X8DrawingEngine.h>
+#include <openrct2/platform/Metrics.h>
 #include <openrct2/paint/Paint.h>
 #include <openrct2/ui/UiContext.h>
 #include <vector>
@@ -139,7 +141,7 @@ public:
             _screenTexture = SDL_CreateTexture(_sdlRenderer, pixelFormat, SDL_TEXTUREACCESS_STREAMING, width, height);
             SDL_SetHint(SDL_HINT_RENDER_SCALE_QUALITY, scaleQualityBuffer);
 
-            uint32_t scale = std::ceil(gConfigGeneral.window_scale);
+            uint32_t scale = std::ceil(context_get_window_scale());
             _scaledScreenTexture = SDL_CreateTexture(
                 _sdlRenderer, pixelFormat, SDL_TEXTUREACCESS_TARGET, width * scale, height * scale);
         }
@@ -207,6 +209,8 @@ protected:
 private:
     void Display()
     {
+        METRIC_SCOPE(Present);
+
 #ifdef __ENABLE_LIGHTFX__
         if (gConfigGeneral.enable_light_fx)
         {
@@ -342,8 +346,8 @@ private:
 
     void RenderDirtyVisuals()
     {
-        float scaleX = gConfigGeneral.window_scale;
-        float scaleY = gConfigGeneral.window_scale;
+        float scaleX = context_get_window_scale();
+        float scaleY = scaleX;
 
         SDL_SetRenderDrawBlendMode(_sdlRenderer, SDL_BLENDMODE_BLEND);
         for (uint32_t y = 0; y < _dirtyGrid.BlockRows; y++)
@@ -11,13 +11,18 @@
 
 #include <SDL.h>
 #include <algorithm>
+#include <cstring>
+#include <openrct2/Context.h>
 #include <openrct2/Game.h>
+#include <openrct2/Intro.h>
 #include <openrct2/common.h>
-#include <openrct2/config/Config.h>
 #include <openrct2/core/Guard.hpp>
 #include <openrct2/drawing/IDrawingEngine.h>
+#include <openrct2/drawing/Weather.h>
 #include <openrct2/drawing/X8DrawingEngine.h>
+#include <openrct2/platform/Metrics.h>
 #include <openrct2/ui/UiContext.h>
+#include <vector>
 
 using namespace OpenRCT2;
 using namespace OpenRCT2::Drawing;
@@ -32,6 +37,48 @@ private:
     SDL_Surface* _RGBASurface = nullptr;
     SDL_Palette* _palette = nullptr;
 
+    // Palette mapped to the window surface's pixel format, so frames can be converted straight into it
+    uint32_t _windowPalette[256] = {};
+    uint32_t _windowPaletteFormat = SDL_PIXELFORMAT_UNKNOWN;
+
+    // Blocks of the dirty grid which have changed since the last frame was presented, only these are copied to the
+    // window surface. Everything is presented after a resize, palette change or new window surface.
+    std::vector<uint8_t> _presentBlocks;
+    std::vector<SDL_Rect> _presentRects;
+    bool _presentAll = true;
+    bool _drawing = false;
+    SDL_Surface* _presentedSurface = nullptr;
+    int32_t _presentedWidth = 0;
+    int32_t _presentedHeight = 0;
+
+    // Areas covered by weather in the last frame, these change again when the weather is restored
+    std::vector<SDL_Rect> _weatherRects;
+
+    /**
+     * Draws weather through the engine's weather drawer while recording the areas it touches.
+     */
+    class PresentWeatherDrawer final : public IWeatherDrawer
+    {
+    private:
+        IWeatherDrawer& _drawer;
+        std::vector<SDL_Rect>& _rects;
+
+    public:
+        PresentWeatherDrawer(IWeatherDrawer& drawer, std::vector<SDL_Rect>& rects)
+            : _drawer(drawer)
+            , _rects(rects)
+        {
+        }
+
+        void Draw(
+            rct_drawpixelinfo* dpi, int32_t x, int32_t y, int32_t width, int32_t height, int32_t xStart, int32_t yStart,
+            const uint8_t* weatherpattern) override
+        {
+            _drawer.Draw(dpi, x, y, width, height, xStart, yStart, weatherpattern);
+            _rects.push_back({ x, y, width, height });
+        }
+    };
+
 public:
     explicit SoftwareDrawingEngine(const std::shared_ptr<IUiContext>& uiContext)
         : X8DrawingEngine(uiContext)
@@ -57,24 +104,15 @@ public:
         SDL_FreeSurface(_RGBASurface);
         SDL_FreePalette(_palette);
 
-        _surface = SDL_CreateRGBSurface(0, width, height, 8, 0, 0, 0, 0);
-        _RGBASurface = SDL_CreateRGBSurface(0, width, height, 32, 0, 0, 0, 0);
-        SDL_SetSurfaceBlendMode(_RGBASurface, SDL_BLENDMODE_NONE);
         _palette = SDL_AllocPalette(256);
-
-        if (_surface == nullptr || _palette == nullptr || _RGBASurface == nullptr)
-        {
-            log_fatal("%p || %p || %p == nullptr %s", _surface, _palette, _RGBASurface, SDL_GetError());
-            exit(-1);
-        }
-
-        if (SDL_SetSurfacePalette(_surface, _palette))
-        {
-            log_fatal("SDL_SetSurfacePalette failed %s", SDL_GetError());
-            exit(-1);
-        }
+        CreateSurfaces(width, height);
 
         ConfigureBits(width, height, _surface->pitch);
+
+        _presentBlocks.assign(_dirtyGrid.BlockColumns * _dirtyGrid.BlockRows, 0);
+        _presentRects.reserve(_presentBlocks.size());
+        _weatherRects.clear();
+        _presentAll = true;
     }
 
     void SetPalette(const GamePalette& palette) override
@@ -90,18 +128,237 @@ public:
                 colours[i].b = palette[i].Blue;
                 colours[i].a = palette[i].Alpha;
             }
-            SDL_SetPaletteColors(_palette, colours, 0, 256);
+            if (std::memcmp(colours, _palette->colors, sizeof(colours)) != 0)
+            {
+                SDL_SetPaletteColors(_palette, colours, 0, 256);
+                _windowPaletteFormat = SDL_PIXELFORMAT_UNKNOWN;
+                _presentAll = true;
+            }
+        }
+    }
+
+    size_t TrimMemory() override
+    {
+        // The intermediate surfaces are only used when the frame can not be converted straight into the window
+        // surface, they are created again when next needed
+        if (_surface == nullptr)
+        {
+            return 0;
+        }
+
+        size_t freed = static_cast<size_t>(_surface->pitch) * _surface->h
+            + static_cast<size_t>(_RGBASurface->pitch) * _RGBASurface->h;
+        SDL_FreeSurface(_surface);
+        SDL_FreeSurface(_RGBASurface);
+        _surface = nullptr;
+        _RGBASurface = nullptr;
+        return freed;
+    }
+
+    void Invalidate(int32_t left, int32_t top, int32_t right, int32_t bottom) override
+    {
+        X8DrawingEngine::Invalidate(left, top, right, bottom);
+
+        // Overlays drawn after the windows invalidate their area so it is redrawn next frame, that area has also
+        // changed in this frame
+        if (_drawing)
+        {
+            MarkPresent(left, top, right, bottom);
+        }
+    }
+
+    void BeginDraw() override
+    {
+        // Restoring the pixels under last frame's weather changes them again
+        for (const auto& rect : _weatherRects)
+        {
+            MarkPresent(rect.x, rect.y, rect.x + rect.w, rect.y + rect.h);
         }
+        _weatherRects.clear();
+
+        X8DrawingEngine::BeginDraw();
+        _drawing = true;
     }
 
     void EndDraw() override
     {
+        _drawing = false;
+        if (gIntroState != IntroState::None)
+        {
+            _presentAll = true;
+        }
+        for (const auto& rect : _weatherRects)
+        {
+            MarkPresent(rect.x, rect.y, rect.x + rect.w, rect.y + rect.h);
+        }
         Display();
     }
 
+    void PaintWeather() override
+    {
+        PresentWeatherDrawer drawer(_weatherDrawer, _weatherRects);
+        DrawWeather(&_bitsDPI, &drawer);
+    }
+
+    void CopyRect(int32_t x, int32_t y, int32_t width, int32_t height, int32_t dx, int32_t dy) override
+    {
+        X8DrawingEngine::CopyRect(x, y, width, height, dx, dy);
+        if (dx != 0 || dy != 0)
+        {
+            MarkPresent(x, y, x + width, y + height);
+        }
+    }
+
+protected:
+    void OnDrawDirtyBlock(uint32_t x, uint32_t y, uint32_t columns, uint32_t rows) override
+    {
+        for (uint32_t yy = y; yy < y + rows; yy++)
+        {
+            std::fill_n(_presentBlocks.begin() + yy * _dirtyGrid.BlockColumns + x, columns, 1);
+        }
+    }
+
 private:
+    void CreateSurfaces(uint32_t width, uint32_t height)
+    {
+        _surface = SDL_CreateRGBSurface(0, width, height, 8, 0, 0, 0, 0);
+        _RGBASurface = SDL_CreateRGBSurface(0, width, height, 32, 0, 0, 0, 0);
+        SDL_SetSurfaceBlendMode(_RGBASurface, SDL_BLENDMODE_NONE);
+
+        if (_surface == nullptr || _palette == nullptr || _RGBASurface == nullptr)
+        {
+            log_fatal("%p || %p || %p == nullptr %s", _surface, _palette, _RGBASurface, SDL_GetError());
+            exit(-1);
+        }
+
+        if (SDL_SetSurfacePalette(_surface, _palette))
+        {
+            log_fatal("SDL_SetSurfacePalette failed %s", SDL_GetError());
+            exit(-1);
+        }
+    }
+
+    void MarkPresent(int32_t left, int32_t top, int32_t right, int32_t bottom)
+    {
+        left = std::max(left, 0);
+        top = std::max(top, 0);
+        right = std::min(right, static_cast<int32_t>(_width));
+        bottom = std::min(bottom, static_cast<int32_t>(_height));
+        if (left >= right || top >= bottom || _presentBlocks.empty())
+        {
+            return;
+        }
+
+        uint32_t blockLeft = left >> _dirtyGrid.BlockShiftX;
+        uint32_t blockRight = (right - 1) >> _dirtyGrid.BlockShiftX;
+        uint32_t blockTop = top >> _dirtyGrid.BlockShiftY;
+        uint32_t blockBottom = (bottom - 1) >> _dirtyGrid.BlockShiftY;
+        for (uint32_t y = blockTop; y <= blockBottom; y++)
+        {
+            std::fill_n(_presentBlocks.begin() + y * _dirtyGrid.BlockColumns + blockLeft, blockRight - blockLeft + 1, 1);
+        }
+    }
+
+    /**
+     * Collects the changed blocks into rectangles and clears them. Runs of blocks within a row become one rectangle,
+     * which is extended downwards while the rows below have the same run.
+     */
+    void CollectPresentRects()
+    {
+        _presentRects.clear();
+        for (uint32_t y = 0; y < _dirtyGrid.BlockRows; y++)
+        {
+            uint8_t* row = _presentBlocks.data() + y * _dirtyGrid.BlockColumns;
+            for (uint32_t x = 0; x < _dirtyGrid.BlockColumns; x++)
+            {
+                if (row[x] == 0)
+                {
+                    continue;
+                }
+
+                uint32_t columns = 1;
+                while (x + columns < _dirtyGrid.BlockColumns && row[x + columns] != 0)
+                {
+                    columns++;
+                }
+                std::fill_n(row + x, columns, 0);
+
+                uint32_t left = x * _dirtyGrid.BlockWidth;
+                uint32_t top = y * _dirtyGrid.BlockHeight;
+                x += columns - 1;
+                if (left >= _width || top >= _height)
+                {
+                    continue;
+                }
+
+                SDL_Rect rect = { static_cast<int32_t>(left), static_cast<int32_t>(top),
+                                  static_cast<int32_t>(std::min(columns * _dirtyGrid.BlockWidth, _width - left)),
+                                  static_cast<int32_t>(std::min(_dirtyGrid.BlockHeight, _height - top)) };
+                auto above = std::find_if(_presentRects.begin(), _presentRects.end(), [&rect](const SDL_Rect& other) {
+                    return other.x == rect.x && other.w == rect.w && other.y + other.h == rect.y;
+                });
+                if (above != _presentRects.end())
+                {
+                    above->h += rect.h;
+                }
+                else
+                {
+                    _presentRects.push_back(rect);
+                }
+            }
+        }
+    }
+
     void Display()
     {
+        METRIC_SCOPE(Present);
+
+        SDL_Surface* windowSurface = SDL_GetWindowSurface(_window);
+        if (windowSurface != _presentedSurface
+            || (windowSurface != nullptr && (windowSurface->w != _presentedWidth || windowSurface->h != _presentedHeight)))
+        {
+            _presentAll = true;
+        }
+
+        const auto windowScale = context_get_window_scale();
+        const bool unscaled = windowScale == 1 || windowScale <= 0;
+        if (!_presentAll)
+        {
+            CollectPresentRects();
+            if (_presentRects.empty())
+            {
+                // Nothing has changed, keep showing the last frame
+                return;
+            }
+        }
+        else
+        {
+            std::fill(_presentBlocks.begin(), _presentBlocks.end(), 0);
+            _presentRects.clear();
+            _presentRects.push_back({ 0, 0, static_cast<int32_t>(_width), static_cast<int32_t>(_height) });
+        }
+
+        _presentedSurface = windowSurface;
+        _presentedWidth = windowSurface != nullptr ? windowSurface->w : 0;
+        _presentedHeight = windowSurface != nullptr ? windowSurface->h : 0;
+        _presentAll = false;
+
+        // Other window surface formats and scaled windows are still blitted in full
+        if (unscaled && DisplayDirect())
+        {
+            if (SDL_UpdateWindowSurfaceRects(_window, _presentRects.data(), static_cast<int32_t>(_presentRects.size())))
+            {
+                log_fatal("SDL_UpdateWindowSurfaceRects %s", SDL_GetError());
+                exit(1);
+            }
+            return;
+        }
+
+        if (_surface == nullptr)
+        {
+            CreateSurfaces(_width, _height);
+        }
+
         // Lock the surface before setting its pixels
         if (SDL_MUSTLOCK(_surface))
         {
@@ -122,7 +379,7 @@ private:
         }
 
         // Copy the surface to the window
-        if (gConfigGeneral.window_scale == 1 || gConfigGeneral.window_scale <= 0)
+        if (unscaled)
         {
             SDL_Surface* windowSurface = SDL_GetWindowSurface(_window);
             if (SDL_BlitSurface(_surface, nullptr, windowSurface, nullptr))
@@ -154,6 +411,75 @@ private:
             exit(1);
         }
     }
+
+    /**
+     * Converts the frame straight into a 16 or 32-bit window surface through a palette in the surface's pixel
+     * format, skipping the copy to the 8-bit surface and SDL's generic blitter. A 16-bit window surface takes half
+     * the bytes per frame of a 32-bit one.
+     */
+    bool DisplayDirect()
+    {
+        SDL_Surface* windowSurface = SDL_GetWindowSurface(_window);
+        if (windowSurface == nullptr || _palette == nullptr)
+        {
+            return false;
+        }
+
+        const auto bytesPerPixel = windowSurface->format->BytesPerPixel;
+        if ((bytesPerPixel != 2 && bytesPerPixel != 4) || windowSurface->w < static_cast<int32_t>(_width)
+            || windowSurface->h < static_cast<int32_t>(_height))
+        {
+            return false;
+        }
+
+        if (_windowPaletteFormat != windowSurface->format->format)
+        {
+            for (int32_t i = 0; i < 256; i++)
+            {
+                const auto& colour = _palette->colors[i];
+                _windowPalette[i] = SDL_MapRGB(windowSurface->format, colour.r, colour.g, colour.b);
+            }
+            _windowPaletteFormat = windowSurface->format->format;
+        }
+
+        if (SDL_MUSTLOCK(windowSurface) && SDL_LockSurface(windowSurface) < 0)
+        {
+            log_error("locking failed %s", SDL_GetError());
+            return false;
+        }
+
+        if (bytesPerPixel == 2)
+        {
+            ConvertFrame<uint16_t>(windowSurface);
+        }
+        else
+        {
+            ConvertFrame<uint32_t>(windowSurface);
+        }
+
+        if (SDL_MUSTLOCK(windowSurface))
+        {
+            SDL_UnlockSurface(windowSurface);
+        }
+        return true;
+    }
+
+    template<typename TPixel> void ConvertFrame(SDL_Surface* windowSurface)
+    {
+        for (const auto& rect : _presentRects)
+        {
+            for (int32_t y = rect.y; y < rect.y + rect.h; y++)
+            {
+                const uint8_t* src = _bits + y * _pitch + rect.x;
+                auto dst = reinterpret_cast<TPixel*>(static_cast<uint8_t*>(windowSurface->pixels) + y * windowSurface->pitch)
+                    + rect.x;
+                for (int32_t x = 0; x < rect.w; x++)
+                {
+                    dst[x] = static_cast<TPixel>(_windowPalette[src[x]]);
+                }
+            }
+        }
+    }
 };
 
 std::unique_ptr<IDrawingEngine> OpenRCT2::Ui::CreateSoftwareDrawingEngine(const std::shared_ptr<IUiContext>& uiContext)
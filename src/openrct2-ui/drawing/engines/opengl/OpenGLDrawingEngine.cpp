@@ -25,8 +25,8 @@
 #    include <algorithm>
 #    include <cmath>
 #    include <openrct2-ui/interface/Window.h>
+#    include <openrct2/Context.h>
 #    include <openrct2/Intro.h>
-#    include <openrct2/config/Config.h>
 #    include <openrct2/core/Console.hpp>
 #    include <openrct2/drawing/Drawing.h>
 #    include <openrct2/drawing/IDrawingContext.h>
@@ -34,6 +34,7 @@
 #    include <openrct2/drawing/LightFX.h>
 #    include <openrct2/drawing/Weather.h>
 #    include <openrct2/interface/Screenshot.h>
+#    include <openrct2/platform/Metrics.h>
 #    include <openrct2/ui/UiContext.h>
 #    include <openrct2/util/Util.h>
 #    include <openrct2/world/Climate.h>
@@ -371,6 +372,12 @@ public:
         _drawingContext->GetTextureCache()->InvalidateImage(image);
     }
 
+    size_t TrimMemory() override
+    {
+        // Textures live in video memory, and releasing the atlases would reload every image on the next frame
+        return 0;
+    }
+
     rct_drawpixelinfo* GetDPI()
     {
         return &_bitsDPI;
@@ -450,13 +457,15 @@ private:
         }
         if (GetContext()->GetUiContext()->GetScaleQuality() == ScaleQuality::SmoothNearestNeighbour)
         {
-            uint32_t scale = std::ceil(gConfigGeneral.window_scale);
+            uint32_t scale = std::ceil(context_get_window_scale());
             _smoothScaleFramebuffer = std::make_unique<OpenGLFramebuffer>(_width * scale, _height * scale, false, false);
         }
     }
 
     void Display()
     {
+        METRIC_SCOPE(Present);
+
         SDL_GL_SwapWindow(_window);
     }
 };
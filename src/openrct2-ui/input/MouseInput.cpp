@@ -221,8 +221,9 @@ static void InputScrollDragContinue(const ScreenCoordsXY& screenCoords, rct_wind
     WidgetScrollUpdateThumbs(w, widgetIndex);
     window_invalidate_by_number(w->classification, w->number);
 
-    ScreenCoordsXY fixedCursorPosition = { static_cast<int32_t>(std::ceil(gInputDragLast.x * gConfigGeneral.window_scale)),
-                                           static_cast<int32_t>(std::ceil(gInputDragLast.y * gConfigGeneral.window_scale)) };
+    const auto windowScale = context_get_window_scale();
+    ScreenCoordsXY fixedCursorPosition = { static_cast<int32_t>(std::ceil(gInputDragLast.x * windowScale)),
+                                           static_cast<int32_t>(std::ceil(gInputDragLast.y * windowScale)) };
 
     context_set_cursor_position(fixedCursorPosition);
 }
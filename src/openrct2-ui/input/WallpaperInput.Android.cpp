@@ -0,0 +1,160 @@
+/*****************************************************************************
+ * Copyright (c) 2014-2020 OpenRCT2 developers
+ *
+ * For a complete list of all authors, please refer to contributors.md
+ * Interested in contributing? Visit https://github.com/OpenRCT2/OpenRCT2
+ *
+ * OpenRCT2 is licensed under the GNU General Public License version 3.
+ *****************************************************************************/
+
+#ifdef __ANDROID__
+
+#    include "WallpaperInput.h"
+
+#    include <SDL.h>
+#    include <cmath>
+#    include <jni.h>
+#    include <mutex>
+#    include <openrct2/Context.h>
+#    include <openrct2/interface/Viewport.h>
+#    include <openrct2/interface/Window.h>
+#    include <openrct2/interface/Window_internal.h>
+#    include <openrct2/platform/Platform.h>
+
+namespace OpenRCT2::Ui::WallpaperInput
+{
+    // Layout of the state filled by WallpaperInput.drain
+    enum
+    {
+        STATE_OFFSET_X,
+        STATE_OFFSET_Y,
+        STATE_DRAG_X,
+        STATE_DRAG_Y,
+        STATE_LAYOUT_WIDTH,
+        STATE_LAYOUT_HEIGHT,
+        STATE_SURFACE_WIDTH,
+        STATE_SURFACE_HEIGHT,
+        STATE_SIZE,
+    };
+
+    // Fraction of the layout width the view moves by when the launcher scrolls from its first to its last page
+    constexpr float PARALLAX_WIDTH = 0.5f;
+
+    struct WallpaperInputJni
+    {
+        jclass Class{};
+        jmethodID Drain{};
+        jfloatArray State{};
+    };
+
+    static float _lastOffsetX = NAN;
+    static float _lastOffsetY = NAN;
+
+    // Parts of a pixel left over from previous frames, so slow drags still move the view
+    static float _remainderX;
+    static float _remainderY;
+
+    static const WallpaperInputJni& GetWallpaperInputJni(JNIEnv* env)
+    {
+        static WallpaperInputJni jni;
+        static std::once_flag flag;
+        std::call_once(flag, [env]() {
+            jclass inputClass = Platform::AndroidFindClass(env, "io/openrct2/WallpaperInput");
+            jni.Class = static_cast<jclass>(env->NewGlobalRef(inputClass));
+            jni.Drain = env->GetStaticMethodID(inputClass, "drain", "([F)V");
+            env->DeleteLocalRef(inputClass);
+
+            // Reused every frame so draining does not allocate on either side
+            jfloatArray state = env->NewFloatArray(STATE_SIZE);
+            jni.State = static_cast<jfloatArray>(env->NewGlobalRef(state));
+            env->DeleteLocalRef(state);
+        });
+        return jni;
+    }
+
+    static float GetOffsetDelta(float offset, float& lastOffset)
+    {
+        if (std::isnan(offset))
+        {
+            return 0;
+        }
+        float delta = std::isnan(lastOffset) ? 0 : offset - lastOffset;
+        lastOffset = offset;
+        return delta;
+    }
+
+    void Process()
+    {
+        JNIEnv* env = static_cast<JNIEnv*>(SDL_AndroidGetJNIEnv());
+        const auto& jni = GetWallpaperInputJni(env);
+        if (jni.Drain == nullptr)
+        {
+            return;
+        }
+
+        env->CallStaticVoidMethod(jni.Class, jni.Drain, jni.State);
+        if (env->ExceptionCheck())
+        {
+            env->ExceptionDescribe();
+            env->ExceptionClear();
+            return;
+        }
+
+        jfloat state[STATE_SIZE];
+        env->GetFloatArrayRegion(jni.State, 0, STATE_SIZE, state);
+
+        float offsetDeltaX = GetOffsetDelta(state[STATE_OFFSET_X], _lastOffsetX);
+        float offsetDeltaY = GetOffsetDelta(state[STATE_OFFSET_Y], _lastOffsetY);
+        float dragX = state[STATE_DRAG_X];
+        float dragY = state[STATE_DRAG_Y];
+        if (offsetDeltaX == 0 && offsetDeltaY == 0 && dragX == 0 && dragY == 0)
+        {
+            return;
+        }
+
+        rct_window* mainWindow = window_get_main();
+        if (mainWindow == nullptr || mainWindow->viewport == nullptr)
+        {
+            return;
+        }
+        rct_viewport* viewport = mainWindow->viewport;
+
+        // Offsets and drags are in layout pixels, dragging moves the view the opposite way to the finger. Below the
+        // full render scale the surface is smaller than the layout, so convert to surface pixels before the window
+        // scale is applied.
+        const auto windowScale = context_get_window_scale();
+        const float scale = windowScale > 0 ? windowScale : 1.0f;
+        float layoutWidth = state[STATE_LAYOUT_WIDTH];
+        float layoutHeight = state[STATE_LAYOUT_HEIGHT];
+        float scaleX = 1.0f / scale;
+        float scaleY = 1.0f / scale;
+        if (layoutWidth > 0 && layoutHeight > 0)
+        {
+            scaleX *= state[STATE_SURFACE_WIDTH] / layoutWidth;
+            scaleY *= state[STATE_SURFACE_HEIGHT] / layoutHeight;
+        }
+        else
+        {
+            // Not sized yet, the surface is at the layout size
+            layoutWidth = viewport->width * scale;
+            layoutHeight = viewport->height * scale;
+        }
+        float deltaX = _remainderX + (offsetDeltaX * layoutWidth * PARALLAX_WIDTH - dragX) * scaleX;
+        float deltaY = _remainderY + (offsetDeltaY * layoutHeight * PARALLAX_WIDTH - dragY) * scaleY;
+        ScreenCoordsXY delta{ static_cast<int32_t>(std::lround(deltaX)), static_cast<int32_t>(std::lround(deltaY)) };
+        _remainderX = deltaX - delta.x;
+        _remainderY = deltaY - delta.y;
+        if (delta.x == 0 && delta.y == 0)
+        {
+            return;
+        }
+
+        if (dragX != 0 || dragY != 0)
+        {
+            window_unfollow_sprite(mainWindow);
+        }
+        mainWindow->savedViewPos += ScreenCoordsXY{ viewport->zoom.ApplyTo(delta.x), viewport->zoom.ApplyTo(delta.y) };
+    }
+} // namespace OpenRCT2::Ui::WallpaperInput
+
+#endif
@@ -0,0 +1,23 @@
+/*****************************************************************************
+ * Copyright (c) 2014-2020 OpenRCT2 developers
+ *
+ * For a complete list of all authors, please refer to contributors.md
+ * Interested in contributing? Visit https://github.com/OpenRCT2/OpenRCT2
+ *
+ * OpenRCT2 is licensed under the GNU General Public License version 3.
+ *****************************************************************************/
+
+#pragma once
+
+#ifdef __ANDROID__
+
+namespace OpenRCT2::Ui::WallpaperInput
+{
+    /**
+     * Scrolls the main view by the wallpaper offsets and touch drags posted to io.openrct2.WallpaperInput since the
+     * last call. Called once per frame from the game thread.
+     */
+    void Process();
+} // namespace OpenRCT2::Ui::WallpaperInput
+
+#endif
@@ -28,6 +28,7 @@
 #include <openrct2/interface/Window.h>
 #include <openrct2/management/NewsItem.h>
 #include <openrct2/object/ObjectManager.h>
+#include <openrct2/platform/StartupTimeline.h>
 #include <openrct2/scenario/ScenarioRepository.h>
 #include <openrct2/scenario/ScenarioSources.h>
 #include <openrct2/title/TitleScreen.h>
@@ -370,6 +371,7 @@ private:
     bool LoadParkFromFile(const utf8* path)
     {
         log_verbose("TitleSequencePlayer::LoadParkFromFile(%s)", path);
+        STARTUP_PHASE("Title park load");
         bool success = false;
         try
         {
@@ -407,6 +409,7 @@ private:
     bool LoadParkFromStream(OpenRCT2::IStream* stream, const std::string& hintPath)
     {
         log_verbose("TitleSequencePlayer::LoadParkFromStream(%s)", hintPath.c_str());
+        STARTUP_PHASE("Title park load");
         bool success = false;
         try
         {
@@ -26,12 +26,14 @@
 #include "Version.h"
 #include "actions/GameAction.h"
 #include "audio/AudioContext.h"
+#include "audio/AudioMixer.h"
 #include "audio/audio.h"
 #include "config/Config.h"
 #include "core/Console.hpp"
 #include "core/File.h"
 #include "core/FileScanner.h"
 #include "core/FileStream.h"
+#include "core/FrameLimiter.hpp"
 #include "core/Guard.hpp"
 #include "core/Http.h"
 #include "core/MemoryStream.h"
@@ -58,7 +60,9 @@
 #include "paint/Painter.h"
 #include "park/ParkFile.h"
 #include "platform/Crash.h"
+#include "platform/Metrics.h"
 #include "platform/Platform.h"
+#include "platform/StartupTimeline.h"
 #include "profiling/Profiling.h"
 #include "ride/TrackData.h"
 #include "ride/TrackDesignRepository.h"
@@ -74,6 +78,7 @@
 #include "world/Park.h"
 
 #include <algorithm>
+#include <atomic>
 #include <cmath>
 #include <exception>
 #include <future>
@@ -89,6 +94,26 @@ using namespace OpenRCT2::Paint;
 using namespace OpenRCT2::Scripting;
 using namespace OpenRCT2::Ui;
 
+// Set from the platform's UI thread, so kept outside of the context
+static std::atomic<float> _frameRateLimit{ 0.0f };
+static std::atomic<float> _frameRateScale{ 1.0f };
+static std::atomic<float> _resolutionScale{ 1.0f };
+static std::atomic<bool> _hidden{ false };
+static std::atomic<float> _hiddenTickRate{ 0.0f };
+static std::atomic<MemoryTrimLevel> _memoryTrimLevel{ MemoryTrimLevel::None };
+
+// The resolution scale in effect, only used on the game thread. Kept apart from the configured window scale so it is
+// never saved.
+static float _appliedResolutionScale = 1.0f;
+
+/**
+ * Sleeps for at least the given time, rounded up so that waits shorter than a millisecond do not become busy loops.
+ */
+static void SleepSeconds(float seconds)
+{
+    Platform::Sleep(static_cast<uint32_t>(std::ceil(seconds * 1000.0f)));
+}
+
 namespace OpenRCT2
 {
     class Context final : public IContext
@@ -131,6 +156,9 @@ namespace OpenRCT2
         Timer _timer;
         float _ticksAccumulator = 0.0f;
         float _realtimeAccumulator = 0.0f;
+        FrameLimiter _frameLimiter;
+        float _hiddenTicksAccumulator = 0.0f;
+        bool _runningHidden = false;
         float _timeScale = 1.0f;
         bool _variableFrame = false;
 
@@ -288,7 +316,12 @@ namespace OpenRCT2
 
         int32_t RunOpenRCT2(int argc, const char** argv) override
         {
-            if (Initialise())
+            bool initialised;
+            {
+                STARTUP_PHASE("Initialise");
+                initialised = Initialise();
+            }
+            if (initialised)
             {
                 Launch();
                 return EXIT_SUCCESS;
@@ -418,6 +451,7 @@ namespace OpenRCT2
 
             if (!gOpenRCT2Headless)
             {
+                STARTUP_PHASE("Create window");
                 _uiContext->CreateWindow();
             }
 
@@ -426,15 +460,24 @@ namespace OpenRCT2
             // TODO Ideally we want to delay this until we show the title so that we can
             //      still open the game window and draw a progress screen for the creation
             //      of the object cache.
-            _objectRepository->LoadOrConstruct(_localisationService->GetCurrentLanguage());
+            {
+                STARTUP_PHASE("Object repository");
+                _objectRepository->LoadOrConstruct(_localisationService->GetCurrentLanguage());
+            }
 
             // TODO Like objects, this can take a while if there are a lot of track designs
             //      its also really something really we might want to do in the background
             //      as its not required until the player wants to place a new ride.
-            _trackDesignRepository->Scan(_localisationService->GetCurrentLanguage());
+            {
+                STARTUP_PHASE("Track design repository");
+                _trackDesignRepository->Scan(_localisationService->GetCurrentLanguage());
+            }
 
-            _scenarioRepository->Scan(_localisationService->GetCurrentLanguage());
-            TitleSequenceManager::Scan();
+            {
+                STARTUP_PHASE("Scenario repository");
+                _scenarioRepository->Scan(_localisationService->GetCurrentLanguage());
+                TitleSequenceManager::Scan();
+            }
 
             if (!gOpenRCT2Headless)
             {
@@ -580,6 +623,7 @@ namespace OpenRCT2
             IStream* stream, const std::string& path, bool loadTitleScreenFirstOnFail = false,
             bool asScenario = false) final override
         {
+            STARTUP_PHASE("Park load");
             try
             {
                 ClassifiedFileInfo info;
@@ -1005,6 +1049,16 @@ namespace OpenRCT2
 
             const auto deltaTime = _timer.GetElapsedTimeAndRestart().count();
 
+            const bool hidden = UpdateHidden();
+            ApplyMemoryTrim(hidden);
+            if (hidden)
+            {
+                RunHiddenFrame(deltaTime);
+                return;
+            }
+
+            ApplyResolutionScale();
+
             // Make sure we catch the state change and reset it.
             bool useVariableFrame = ShouldRunVariableFrame();
             if (_variableFrame != useVariableFrame)
@@ -1036,6 +1090,9 @@ namespace OpenRCT2
             float scaledDeltaTime = deltaTime * _timeScale;
             _ticksAccumulator = std::min(_ticksAccumulator + scaledDeltaTime, GAME_UPDATE_MAX_THRESHOLD);
 
+            // Frames, bounded by the frame time rather than the tick backlog
+            _frameLimiter.Update(deltaTime, GetFrameTimeLimit());
+
             // Real Time.
             _realtimeAccumulator = std::min(_realtimeAccumulator + deltaTime, GAME_UPDATE_MAX_THRESHOLD);
             while (_realtimeAccumulator >= GAME_UPDATE_TIME_MS)
@@ -1054,7 +1111,7 @@ namespace OpenRCT2
             if (_ticksAccumulator < GAME_UPDATE_TIME_MS)
             {
                 const auto sleepTimeSec = (GAME_UPDATE_TIME_MS - _ticksAccumulator);
-                Platform::Sleep(static_cast<uint32_t>(sleepTimeSec * 1000.f));
+                SleepSeconds(sleepTimeSec);
                 return;
             }
 
@@ -1068,7 +1125,7 @@ namespace OpenRCT2
                 _ticksAccumulator -= GAME_UPDATE_TIME_MS;
             }
 
-            if (ShouldDraw())
+            if (ShouldDraw() && _frameLimiter.IsFrameDue(GetFrameTimeLimit()))
             {
                 Draw();
             }
@@ -1103,25 +1160,148 @@ namespace OpenRCT2
 
             if (shouldDraw)
             {
-                const float alpha = std::min(_ticksAccumulator / GAME_UPDATE_TIME_MS, 1.0f);
-                tweener.Tween(alpha);
+                if (_frameLimiter.IsFrameDue(GetFrameTimeLimit()))
+                {
+                    const float alpha = std::min(_ticksAccumulator / GAME_UPDATE_TIME_MS, 1.0f);
+                    tweener.Tween(alpha);
 
-                Draw();
+                    Draw();
+                }
+                else
+                {
+                    // Sleep until either the next tick or the next frame is due rather than spinning
+                    const auto sleepTimeSec = std::min(
+                        GAME_UPDATE_TIME_MS - _ticksAccumulator, _frameLimiter.GetTimeUntilFrame(GetFrameTimeLimit()));
+                    if (sleepTimeSec > 0.0f)
+                    {
+                        SleepSeconds(sleepTimeSec);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Switches between hidden and visible running, returns whether the game is hidden.
+         */
+        bool UpdateHidden()
+        {
+            const bool hidden = _hidden.load(std::memory_order_relaxed);
+            if (hidden == _runningHidden)
+            {
+                return hidden;
+            }
+
+            _runningHidden = hidden;
+            if (hidden)
+            {
+                log_verbose("Running hidden at %.1f ticks per second", _hiddenTickRate.load(std::memory_order_relaxed));
+                _hiddenTicksAccumulator = 0.0f;
+                Mixer_SetMuted(true);
+            }
+            else
+            {
+                log_verbose("Running visible");
+
+                // Entities were ticked without being tracked, so start interpolating afresh. The ticks made while
+                // hidden have invalidated what they changed, so the next frame only redraws those parts.
+                EntityTweener::Get().Reset();
+                _ticksAccumulator = 0.0f;
+                _frameLimiter.MakeDue(GetFrameTimeLimit());
+                Mixer_SetMuted(false);
+            }
+            return hidden;
+        }
+
+        void ApplyMemoryTrim(bool hidden)
+        {
+            const auto level = _memoryTrimLevel.load(std::memory_order_relaxed);
+            if (level == MemoryTrimLevel::None || (level == MemoryTrimLevel::RenderTargets && !hidden))
+            {
+                // Render targets would be needed again right away, keep the request until hidden
+                return;
+            }
+            _memoryTrimLevel.store(MemoryTrimLevel::None, std::memory_order_relaxed);
+
+            const auto numBytes = _drawingEngine != nullptr ? _drawingEngine->TrimMemory() : 0;
+            log_info("Memory trim released %zu bytes of render targets", numBytes);
+        }
+
+        /**
+         * Keeps the game ticking at the hidden tick rate without drawing or touching the window, until it becomes
+         * visible again.
+         */
+        void RunHiddenFrame(float deltaTime)
+        {
+            PROFILED_FUNCTION();
+
+            // Longest sleep, so that becoming visible again is picked up quickly
+            constexpr float MaxSleepTime = 0.1f;
+
+            _uiContext->ProcessMessages();
+
+            const auto tickRate = _hiddenTickRate.load(std::memory_order_relaxed);
+            if (tickRate <= 0.0f)
+            {
+                SleepSeconds(MaxSleepTime);
+                return;
+            }
+
+            const auto tickTime = 1.0f / tickRate;
+            _hiddenTicksAccumulator = std::min(_hiddenTicksAccumulator + deltaTime, tickTime * GAME_MAX_UPDATES);
+            while (_hiddenTicksAccumulator >= tickTime)
+            {
+                Tick();
+                window_update_all();
+                _hiddenTicksAccumulator -= tickTime;
+            }
+
+            const auto sleepTimeSec = std::min(tickTime - _hiddenTicksAccumulator, MaxSleepTime);
+            SleepSeconds(sleepTimeSec);
+        }
+
+        /**
+         * Minimum time between two drawn frames in seconds, 0 if the frame rate is not limited.
+         */
+        float GetFrameTimeLimit() const
+        {
+            return FrameLimiter::GetFrameTime(
+                _frameRateLimit.load(std::memory_order_relaxed), _frameRateScale.load(std::memory_order_relaxed),
+                GAME_UPDATE_FPS);
+        }
+
+        /**
+         * Draws at a fraction of the window's resolution by raising the window scale, see
+         * context_get_window_scale. The configured window scale is left untouched.
+         */
+        void ApplyResolutionScale()
+        {
+            const auto scale = _resolutionScale.load(std::memory_order_relaxed);
+            if (scale == _appliedResolutionScale)
+            {
+                return;
             }
+
+            _appliedResolutionScale = scale;
+            _uiContext->TriggerResize();
         }
 
         void Draw()
         {
             PROFILED_FUNCTION();
+            METRIC_FRAME();
+            METRIC_SCOPE(Draw);
 
             _drawingEngine->BeginDraw();
             _painter->Paint(*_drawingEngine);
             _drawingEngine->EndDraw();
+
+            STARTUP_FINISHED();
         }
 
         void Tick()
         {
             PROFILED_FUNCTION();
+            METRIC_SCOPE(Tick);
 
             // TODO: This variable has been never "variable" in time, some code expects
             // this to be 40Hz (25 ms). Refactor this once the UI is decoupled.
@@ -1348,7 +1528,7 @@ void context_setcurrentcursor(CursorID cursor)
 
 void context_update_cursor_scale()
 {
-    GetContext()->GetUiContext()->SetCursorScale(static_cast<uint8_t>(std::round(gConfigGeneral.window_scale)));
+    GetContext()->GetUiContext()->SetCursorScale(static_cast<uint8_t>(std::round(context_get_window_scale())));
 }
 
 void context_hide_cursor()
@@ -1370,8 +1550,9 @@ ScreenCoordsXY context_get_cursor_position_scaled()
 {
     auto cursorCoords = context_get_cursor_position();
     // Compensate for window scaling.
-    return { static_cast<int32_t>(std::ceil(cursorCoords.x / gConfigGeneral.window_scale)),
-             static_cast<int32_t>(std::ceil(cursorCoords.y / gConfigGeneral.window_scale)) };
+    const auto windowScale = context_get_window_scale();
+    return { static_cast<int32_t>(std::ceil(cursorCoords.x / windowScale)),
+             static_cast<int32_t>(std::ceil(cursorCoords.y / windowScale)) };
 }
 
 void context_set_cursor_position(const ScreenCoordsXY& cursorPosition)
@@ -1424,6 +1605,45 @@ void context_recreate_window()
     GetContext()->GetUiContext()->RecreateWindow();
 }
 
+void context_set_frame_rate_limit(float fps)
+{
+    _frameRateLimit.store(std::max(fps, 0.0f), std::memory_order_relaxed);
+}
+
+float context_get_frame_rate_limit()
+{
+    return _frameRateLimit.load(std::memory_order_relaxed);
+}
+
+void context_set_render_budget(float frameRateScale, float resolutionScale)
+{
+    _frameRateScale.store(std::clamp(frameRateScale, 0.1f, 1.0f), std::memory_order_relaxed);
+    _resolutionScale.store(std::clamp(resolutionScale, 0.25f, 1.0f), std::memory_order_relaxed);
+}
+
+float context_get_window_scale()
+{
+    return gConfigGeneral.window_scale / _appliedResolutionScale;
+}
+
+void context_set_hidden(bool hidden)
+{
+    _hidden.store(hidden, std::memory_order_relaxed);
+}
+
+void context_set_hidden_tick_rate(float ticksPerSecond)
+{
+    _hiddenTickRate.store(std::clamp(ticksPerSecond, 0.0f, static_cast<float>(GAME_UPDATE_FPS)), std::memory_order_relaxed);
+}
+
+void context_trim_memory(MemoryTrimLevel level)
+{
+    auto current = _memoryTrimLevel.load(std::memory_order_relaxed);
+    while (current < level && !_memoryTrimLevel.compare_exchange_weak(current, level, std::memory_order_relaxed))
+    {
+    }
+}
+
 int32_t context_get_width()
 {
     return GetContext()->GetUiContext()->GetWidth();
@@ -204,6 +204,42 @@ bool context_is_input_active();
 void context_trigger_resize();
 void context_set_fullscreen_mode(int32_t mode);
 void context_recreate_window();
+/**
+ * Limits how many frames are drawn per second, 0 for no limit. May be called from any thread.
+ */
+void context_set_frame_rate_limit(float fps);
+float context_get_frame_rate_limit();
+/**
+ * Scales the frame rate limit and the resolution the game is drawn at, both between 0 and 1. May be called from
+ * any thread.
+ */
+void context_set_render_budget(float frameRateScale, float resolutionScale);
+/**
+ * The configured window scale multiplied by the factor the render budget lowers the resolution by. Use this rather
+ * than the config for drawing and input, only on the game thread.
+ */
+float context_get_window_scale();
+/**
+ * While hidden nothing is drawn and the game keeps ticking at the hidden tick rate, 0 pauses it. May be called from any
+ * thread.
+ */
+void context_set_hidden(bool hidden);
+void context_set_hidden_tick_rate(float ticksPerSecond);
+
+enum class MemoryTrimLevel : int32_t
+{
+    None,
+    // Render targets are released once the game is hidden
+    RenderTargets,
+    // Render targets are released even while visible
+    Critical,
+};
+
+/**
+ * Releases memory which is recreated on demand before the next frame, see MemoryTrimLevel. May be called from any
+ * thread.
+ */
+void context_trim_memory(MemoryTrimLevel level);
 int32_t context_get_width();
 int32_t context_get_height();
 bool context_has_focus();
@@ -134,7 +134,7 @@ static u8string GetOpenRCT2DirectoryName()
 #endif
 }
 
-std::unique_ptr<IPlatformEnvironment> OpenRCT2::CreatePlatformEnvironment()
+std::unique_ptr<IPlatformEnvironment> OpenRCT2::CreateDefaultPlatformEnvironment()
 {
     auto subDirectory = GetOpenRCT2DirectoryName();
 
@@ -174,7 +174,12 @@ std::unique_ptr<IPlatformEnvironment> OpenRCT2::CreatePlatformEnvironment()
         basePaths[static_cast<size_t>(DIRBASE::DOCUMENTATION)] = basePaths[static_cast<size_t>(DIRBASE::OPENRCT2)];
     }
 
-    auto env = OpenRCT2::CreatePlatformEnvironment(basePaths);
+    return OpenRCT2::CreatePlatformEnvironment(basePaths);
+}
+
+std::unique_ptr<IPlatformEnvironment> OpenRCT2::CreatePlatformEnvironment()
+{
+    auto env = CreateDefaultPlatformEnvironment();
 
     // Now load the config so we can get the RCT1 and RCT2 paths
     auto configPath = env->GetFilePath(PATHID::CONFIG);
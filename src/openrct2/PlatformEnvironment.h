@@ -88,4 +88,10 @@ namespace OpenRCT2
     [[nodiscard]] std::unique_ptr<IPlatformEnvironment> CreatePlatformEnvironment(DIRBASE_VALUES basePaths);
     [[nodiscard]] std::unique_ptr<IPlatformEnvironment> CreatePlatformEnvironment();
 
+    /**
+     * Like CreatePlatformEnvironment, but without loading the config. The RCT1 and RCT2 paths are only set if given on
+     * the command line.
+     */
+    [[nodiscard]] std::unique_ptr<IPlatformEnvironment> CreateDefaultPlatformEnvironment();
+
 } // namespace OpenRCT2
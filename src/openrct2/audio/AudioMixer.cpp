@@ -164,6 +164,15 @@ void Mixer_SetVolume(float volume)
     GetMixer()->SetVolume(volume);
 }
 
+void Mixer_SetMuted(bool muted)
+{
+    IAudioMixer* mixer = GetMixer();
+    if (mixer != nullptr)
+    {
+        mixer->SetMuted(muted);
+    }
+}
+
 int32_t DStoMixerVolume(int32_t volume)
 {
     return static_cast<int32_t>(MIXER_VOLUME_MAX * (std::pow(10.0f, static_cast<float>(volume) / 2000)));
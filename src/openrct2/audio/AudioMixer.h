@@ -46,6 +46,11 @@ namespace OpenRCT2::Audio
         virtual IAudioChannel* Play(IAudioSource* source, int32_t loop, bool deleteondone) abstract;
         virtual void Stop(IAudioChannel* channel) abstract;
         virtual void SetVolume(float volume) abstract;
+
+        /**
+         * Silences all channels without changing the volume, e.g. while the game runs hidden.
+         */
+        virtual void SetMuted(bool muted) abstract;
     };
 } // namespace OpenRCT2::Audio
 
@@ -71,6 +76,7 @@ int32_t Mixer_Channel_SetOffset(void* channel, uint64_t offset);
 void Mixer_Channel_SetGroup(void* channel, OpenRCT2::Audio::MixerGroup group);
 OpenRCT2::Audio::IAudioChannel* Mixer_Play_Music(OpenRCT2::Audio::IAudioSource* source, int32_t loop, int32_t streaming);
 void Mixer_SetVolume(float volume);
+void Mixer_SetMuted(bool muted);
 
 int32_t DStoMixerVolume(int32_t volume);
 float DStoMixerPan(int32_t pan);
@@ -0,0 +1,467 @@
+/*****************************************************************************
+ * Copyright (c) 2014-2020 OpenRCT2 developers
+ *
+ * For a complete list of all authors, please refer to contributors.md
+ * Interested in contributing? Visit https://github.com/OpenRCT2/OpenRCT2
+ *
+ * OpenRCT2 is licensed under the GNU General Public License version 3.
+ *****************************************************************************/
+
+#ifdef __ANDROID__
+
+#    include "AndroidAssets.h"
+
+#    include "../platform/Platform.h"
+#    include "File.h"
+#    include "IStream.hpp"
+#    include "Path.hpp"
+#    include "String.hpp"
+#    include "Zip.h"
+
+#    include <algorithm>
+#    include <atomic>
+#    include <cerrno>
+#    include <jni.h>
+#    include <mutex>
+#    include <sys/stat.h>
+#    include <unordered_map>
+
+namespace
+{
+    // Bundled data lives in its own directory within the APK assets
+    constexpr std::string_view AssetPrefix = "assets/openrct2/";
+
+    struct AssetIndex
+    {
+        std::unique_ptr<IZipArchive> Apk;
+        std::unordered_map<std::string, uint64_t> FileSizes;
+        std::unordered_map<std::string, std::vector<AndroidAssets::DirectoryEntry>> Directories;
+
+        // Approximate heap usage of the index and the APK's zip directory
+        size_t MemoryUsage{};
+    };
+
+    std::string _apkPath;
+    std::string _mountPath;
+    std::string _cachePath;
+    uint64_t _apkLastModified;
+    std::atomic<bool> _mounted{ false };
+
+    // Readers keep the index they got alive, so it can be released while still in use
+    std::shared_ptr<const AssetIndex> _index;
+    std::mutex _indexMutex;
+    std::mutex _materialiseMutex;
+
+    void AddFile(AssetIndex& index, const std::string& relativePath, uint64_t size)
+    {
+        index.FileSizes.emplace(relativePath, size);
+
+        // Register the file with its parent, and any parent directories not seen before with theirs
+        std::string path = relativePath;
+        bool isDirectory = false;
+        for (;;)
+        {
+            auto separator = path.find_last_of('/');
+            auto parent = separator == std::string::npos ? std::string() : path.substr(0, separator);
+            auto name = separator == std::string::npos ? path : path.substr(separator + 1);
+
+            bool parentKnown = index.Directories.count(parent) != 0;
+            index.Directories[parent].push_back({ name, isDirectory, isDirectory ? 0 : size });
+            if (parentKnown || parent.empty())
+            {
+                break;
+            }
+
+            path = parent;
+            isDirectory = true;
+        }
+    }
+
+    size_t EstimateMemoryUsage(const AssetIndex& index)
+    {
+        // Hash map nodes hold the key, the value and a couple of pointers
+        constexpr size_t NodeOverhead = 4 * sizeof(void*);
+
+        size_t usage = 0;
+        for (const auto& file : index.FileSizes)
+        {
+            usage += NodeOverhead + sizeof(file) + file.first.capacity();
+        }
+        for (const auto& directory : index.Directories)
+        {
+            usage += NodeOverhead + sizeof(directory) + directory.first.capacity();
+            for (const auto& child : directory.second)
+            {
+                usage += sizeof(child) + child.Name.capacity();
+            }
+        }
+
+        // The zip reader keeps each entry's name, size, CRC, data offset and lookup key
+        auto numFiles = index.Apk->GetNumFiles();
+        for (size_t i = 0; i < numFiles; i++)
+        {
+            usage += 2 * (index.Apk->GetFileName(i).size() + sizeof(std::string)) + NodeOverhead + 3 * sizeof(int64_t);
+        }
+        return usage;
+    }
+
+    std::shared_ptr<const AssetIndex> BuildIndex()
+    {
+        auto index = std::make_shared<AssetIndex>();
+        try
+        {
+            index->Apk = Zip::Open(_apkPath, ZIP_ACCESS::READ);
+        }
+        catch (const std::exception& e)
+        {
+            log_error("Unable to open APK '%s': %s", _apkPath.c_str(), e.what());
+            return index;
+        }
+
+        auto numFiles = index->Apk->GetNumFiles();
+        for (size_t i = 0; i < numFiles; i++)
+        {
+            auto name = index->Apk->GetFileName(i);
+            if (name.size() > AssetPrefix.size() && name.compare(0, AssetPrefix.size(), AssetPrefix) == 0
+                && name.back() != '/')
+            {
+                AddFile(*index, name.substr(AssetPrefix.size()), index->Apk->GetFileSize(i));
+            }
+        }
+
+        for (auto& directory : index->Directories)
+        {
+            auto& children = directory.second;
+            std::sort(children.begin(), children.end(), [](const auto& a, const auto& b) { return a.Name < b.Name; });
+        }
+        index->MemoryUsage = EstimateMemoryUsage(*index);
+        log_verbose("Indexed %zu bundled files in '%s'", index->FileSizes.size(), _apkPath.c_str());
+        return index;
+    }
+
+    /**
+     * The index is built on first use rather than when mounting, as the zip reader needs the class loader which is
+     * only set up by Platform::CoreInit. It is built again after being released by Trim.
+     */
+    std::shared_ptr<const AssetIndex> GetIndex()
+    {
+        std::lock_guard<std::mutex> lock(_indexMutex);
+        if (_index == nullptr)
+        {
+            _index = BuildIndex();
+        }
+        return _index;
+    }
+
+    /**
+     * Converts a path below the mount path to the relative form used by the index.
+     */
+    bool GetRelativePath(std::string_view path, std::string& relativePath)
+    {
+        if (!_mounted.load(std::memory_order_acquire))
+        {
+            return false;
+        }
+        if (path.size() < _mountPath.size() || path.compare(0, _mountPath.size(), _mountPath) != 0)
+        {
+            return false;
+        }
+
+        auto remainder = path.substr(_mountPath.size());
+        if (!remainder.empty() && remainder[0] != '/')
+        {
+            return false;
+        }
+
+        // Drop empty and "." components and resolve ".." so that paths built with Path::Combine match the index
+        relativePath.clear();
+        size_t start = 0;
+        while (start <= remainder.size())
+        {
+            auto end = remainder.find('/', start);
+            if (end == std::string_view::npos)
+            {
+                end = remainder.size();
+            }
+
+            auto component = remainder.substr(start, end - start);
+            if (component == "..")
+            {
+                if (relativePath.empty())
+                {
+                    // Leaves the mount path
+                    return false;
+                }
+                auto parentEnd = relativePath.rfind('/');
+                relativePath.resize(parentEnd == std::string::npos ? 0 : parentEnd);
+            }
+            else if (!component.empty() && component != ".")
+            {
+                if (!relativePath.empty())
+                {
+                    relativePath.push_back('/');
+                }
+                relativePath.append(component);
+            }
+            start = end + 1;
+        }
+        return true;
+    }
+
+    // Streams read from the APK's zip reader, which has to outlive them
+    struct AssetFile
+    {
+        std::shared_ptr<const AssetIndex> Index;
+        std::unique_ptr<OpenRCT2::IStream> Stream;
+    };
+
+    int ReadAsset(void* cookie, char* buffer, int length)
+    {
+        auto& stream = static_cast<AssetFile*>(cookie)->Stream;
+        try
+        {
+            return static_cast<int>(stream->TryRead(buffer, length));
+        }
+        catch (const std::exception&)
+        {
+            errno = EIO;
+            return -1;
+        }
+    }
+
+    fpos_t SeekAsset(void* cookie, fpos_t offset, int whence)
+    {
+        auto& stream = static_cast<AssetFile*>(cookie)->Stream;
+        int64_t position = offset;
+        if (whence == SEEK_CUR)
+        {
+            position += stream->GetPosition();
+        }
+        else if (whence == SEEK_END)
+        {
+            position += stream->GetLength();
+        }
+
+        if (position < 0 || static_cast<uint64_t>(position) > stream->GetLength())
+        {
+            errno = EINVAL;
+            return -1;
+        }
+
+        try
+        {
+            stream->SetPosition(position);
+        }
+        catch (const std::exception&)
+        {
+            errno = EIO;
+            return -1;
+        }
+        return position;
+    }
+
+    int CloseAsset(void* cookie)
+    {
+        delete static_cast<AssetFile*>(cookie);
+        return 0;
+    }
+} // namespace
+
+namespace AndroidAssets
+{
+    void Mount(std::string_view apkPath, std::string_view mountPath, std::string_view cachePath)
+    {
+        if (_mounted.load(std::memory_order_acquire))
+        {
+            return;
+        }
+
+        _apkPath = apkPath;
+        _mountPath = mountPath;
+        while (!_mountPath.empty() && _mountPath.back() == '/')
+        {
+            _mountPath.pop_back();
+        }
+        _cachePath = cachePath;
+
+        struct stat statInfo
+        {
+        };
+        _apkLastModified = stat(_apkPath.c_str(), &statInfo) == 0 ? statInfo.st_mtime : 0;
+
+        _mounted.store(true, std::memory_order_release);
+        log_info("Serving '%s' from '%s'", _mountPath.c_str(), _apkPath.c_str());
+    }
+
+    bool IsMounted()
+    {
+        return _mounted.load(std::memory_order_acquire);
+    }
+
+    bool FileExists(std::string_view path)
+    {
+        std::string relativePath;
+        return GetRelativePath(path, relativePath) && GetIndex()->FileSizes.count(relativePath) != 0;
+    }
+
+    bool DirectoryExists(std::string_view path)
+    {
+        std::string relativePath;
+        return GetRelativePath(path, relativePath) && GetIndex()->Directories.count(relativePath) != 0;
+    }
+
+    uint64_t GetFileSize(std::string_view path)
+    {
+        std::string relativePath;
+        if (GetRelativePath(path, relativePath))
+        {
+            auto index = GetIndex();
+            auto it = index->FileSizes.find(relativePath);
+            if (it != index->FileSizes.end())
+            {
+                return it->second;
+            }
+        }
+        return 0;
+    }
+
+    uint64_t GetLastModified(std::string_view path)
+    {
+        // Bundled files change only when the APK is updated
+        return FileExists(path) ? _apkLastModified : 0;
+    }
+
+    bool GetDirectoryChildren(std::string_view path, std::vector<DirectoryEntry>& children)
+    {
+        std::string relativePath;
+        if (GetRelativePath(path, relativePath))
+        {
+            auto index = GetIndex();
+            auto it = index->Directories.find(relativePath);
+            if (it != index->Directories.end())
+            {
+                children.insert(children.end(), it->second.begin(), it->second.end());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    std::vector<uint8_t> ReadAllBytes(std::string_view path)
+    {
+        if (!FileExists(path))
+        {
+            throw IOException("Unable to open " + std::string(path));
+        }
+
+        std::string relativePath;
+        GetRelativePath(path, relativePath);
+        auto index = GetIndex();
+        if (index->Apk == nullptr)
+        {
+            throw IOException("Unable to open " + std::string(path));
+        }
+        return index->Apk->GetFileData(std::string(AssetPrefix) + relativePath);
+    }
+
+    FILE* OpenFile(std::string_view path)
+    {
+        if (!FileExists(path))
+        {
+            return nullptr;
+        }
+
+        std::string relativePath;
+        GetRelativePath(path, relativePath);
+        auto index = GetIndex();
+        if (index->Apk == nullptr)
+        {
+            return nullptr;
+        }
+        auto stream = index->Apk->GetFileStream(std::string(AssetPrefix) + relativePath);
+        if (stream == nullptr)
+        {
+            return nullptr;
+        }
+
+        auto cookie = new AssetFile{ std::move(index), std::move(stream) };
+        FILE* file = funopen(cookie, ReadAsset, nullptr, SeekAsset, CloseAsset);
+        if (file == nullptr)
+        {
+            delete cookie;
+        }
+        return file;
+    }
+
+    std::string GetLocalPath(std::string_view path)
+    {
+        if (!FileExists(path))
+        {
+            return std::string(path);
+        }
+
+        std::string relativePath;
+        GetRelativePath(path, relativePath);
+        auto localPath = Path::Combine(_cachePath, relativePath);
+
+        std::lock_guard<std::mutex> lock(_materialiseMutex);
+        struct stat statInfo
+        {
+        };
+        if (stat(localPath.c_str(), &statInfo) == 0 && static_cast<uint64_t>(statInfo.st_mtime) >= _apkLastModified
+            && static_cast<uint64_t>(statInfo.st_size) == GetFileSize(path))
+        {
+            return localPath;
+        }
+
+        try
+        {
+            auto data = ReadAllBytes(path);
+            File::WriteAllBytes(localPath, data.data(), data.size());
+        }
+        catch (const std::exception& e)
+        {
+            log_error("Unable to copy '%s' to '%s': %s", std::string(path).c_str(), localPath.c_str(), e.what());
+            return std::string(path);
+        }
+        return localPath;
+    }
+
+    void Prefetch(std::string_view directory, std::string_view extension)
+    {
+        std::vector<DirectoryEntry> children;
+        if (!IsMounted() || !GetDirectoryChildren(directory, children))
+        {
+            return;
+        }
+        for (const auto& child : children)
+        {
+            if (!child.IsDirectory && String::EndsWith(child.Name, extension, true))
+            {
+                GetLocalPath(Path::Combine(directory, child.Name));
+            }
+        }
+    }
+
+    size_t Trim()
+    {
+        std::shared_ptr<const AssetIndex> index;
+        {
+            std::lock_guard<std::mutex> lock(_indexMutex);
+            index = std::move(_index);
+        }
+        return index != nullptr ? index->MemoryUsage : 0;
+    }
+} // namespace AndroidAssets
+
+extern "C" JNIEXPORT void JNICALL
+    Java_io_openrct2_StartupPipeline_nativeMountAssets(JNIEnv* env, jclass, jstring apkPath, jstring cachePath)
+{
+    const char* apkPathChars = env->GetStringUTFChars(apkPath, nullptr);
+    const char* cachePathChars = env->GetStringUTFChars(cachePath, nullptr);
+    AndroidAssets::Mount(apkPathChars, Platform::GetInstallPath(), cachePathChars);
+    env->ReleaseStringUTFChars(cachePath, cachePathChars);
+    env->ReleaseStringUTFChars(apkPath, apkPathChars);
+}
+
+#endif // __ANDROID__
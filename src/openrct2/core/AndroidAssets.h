@@ -0,0 +1,78 @@
+/*****************************************************************************
+ * Copyright (c) 2014-2020 OpenRCT2 developers
+ *
+ * For a complete list of all authors, please refer to contributors.md
+ * Interested in contributing? Visit https://github.com/OpenRCT2/OpenRCT2
+ *
+ * OpenRCT2 is licensed under the GNU General Public License version 3.
+ *****************************************************************************/
+
+#pragma once
+
+#ifdef __ANDROID__
+
+#    include "../common.h"
+
+#    include <cstdio>
+#    include <string>
+#    include <string_view>
+#    include <vector>
+
+/**
+ * Read-only view of the OpenRCT2 data bundled in the APK. Once mounted, paths below the install path resolve to
+ * entries under assets/openrct2/ in the APK, so the data does not need to be extracted to external storage first.
+ */
+namespace AndroidAssets
+{
+    struct DirectoryEntry
+    {
+        std::string Name;
+        bool IsDirectory{};
+        uint64_t Size{};
+    };
+
+    /**
+     * Serves paths below mountPath from the APK at apkPath. Nested archives which have to be opened by path are
+     * materialised once into cachePath.
+     */
+    void Mount(std::string_view apkPath, std::string_view mountPath, std::string_view cachePath);
+    bool IsMounted();
+
+    bool FileExists(std::string_view path);
+    bool DirectoryExists(std::string_view path);
+    uint64_t GetFileSize(std::string_view path);
+    uint64_t GetLastModified(std::string_view path);
+
+    /**
+     * Lists the bundled children of a directory, returns false if the directory is not part of the APK.
+     */
+    bool GetDirectoryChildren(std::string_view path, std::vector<DirectoryEntry>& children);
+
+    std::vector<uint8_t> ReadAllBytes(std::string_view path);
+
+    /**
+     * Opens a read-only FILE for a bundled file, returns nullptr if the file is not part of the APK.
+     */
+    FILE* OpenFile(std::string_view path);
+
+    /**
+     * Returns a path on the file system with the contents of the given path, for callers which can only open real
+     * files. Paths which are not part of the APK are returned unchanged.
+     */
+    std::string GetLocalPath(std::string_view path);
+
+    /**
+     * Materialises the bundled files in a directory with the given extension, so that opening them by path later does
+     * not have to.
+     */
+    void Prefetch(std::string_view directory, std::string_view extension);
+
+    /**
+     * Releases the index of the bundled files, it is built again when next needed.
+     *
+     * @return the approximate number of bytes released.
+     */
+    size_t Trim();
+} // namespace AndroidAssets
+
+#endif // __ANDROID__
@@ -15,6 +15,7 @@
 
 #include "../platform/Platform.h"
 #include "../util/Util.h"
+#include "AndroidAssets.h"
 #include "File.h"
 #include "FileStream.h"
 #include "String.hpp"
@@ -25,6 +26,12 @@ namespace File
 {
     bool Exists(u8string_view path)
     {
+#ifdef __ANDROID__
+        if (AndroidAssets::FileExists(path))
+        {
+            return true;
+        }
+#endif
         fs::path file = fs::u8path(path);
         log_verbose("Checking if file exists: %s", u8string(path).c_str());
         std::error_code ec;
@@ -61,6 +68,12 @@ namespace File
 
     std::vector<uint8_t> ReadAllBytes(u8string_view path)
     {
+#ifdef __ANDROID__
+        if (AndroidAssets::FileExists(path))
+        {
+            return AndroidAssets::ReadAllBytes(path);
+        }
+#endif
         std::ifstream fs(fs::u8path(u8string(path)), std::ios::in | std::ios::binary);
         if (!fs.is_open())
         {
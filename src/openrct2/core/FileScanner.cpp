@@ -23,6 +23,7 @@
 #    include "../localisation/Language.h"
 #endif
 
+#include "AndroidAssets.h"
 #include "FileScanner.h"
 #include "Memory.hpp"
 #include "Numerics.hpp"
@@ -276,6 +277,25 @@ public:
 
     void GetDirectoryChildren(std::vector<DirectoryChild>& children, const std::string& path) override
     {
+#    ifdef __ANDROID__
+        std::vector<AndroidAssets::DirectoryEntry> assets;
+        if (AndroidAssets::GetDirectoryChildren(path, assets))
+        {
+            for (const auto& asset : assets)
+            {
+                DirectoryChild child;
+                child.Type = asset.IsDirectory ? DIRECTORY_CHILD_TYPE::DC_DIRECTORY : DIRECTORY_CHILD_TYPE::DC_FILE;
+                child.Name = asset.Name;
+                if (!asset.IsDirectory)
+                {
+                    child.Size = asset.Size;
+                    child.LastModified = AndroidAssets::GetLastModified(Path::Combine(path, asset.Name));
+                }
+                children.push_back(std::move(child));
+            }
+            return;
+        }
+#    endif
         struct dirent** namelist;
         int32_t count = scandir(path.c_str(), &namelist, FilterFunc, alphasort);
         if (count > 0)
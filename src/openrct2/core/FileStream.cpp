@@ -9,6 +9,7 @@
 
 #include "FileStream.h"
 
+#include "AndroidAssets.h"
 #include "Path.hpp"
 #include "String.hpp"
 
@@ -87,6 +88,20 @@ namespace OpenRCT2
         auto modeW = String::ToWideChar(mode);
         _file = _wfopen(pathW.c_str(), modeW.c_str());
 #else
+#    ifdef __ANDROID__
+        if (fileMode == FILE_MODE_OPEN && AndroidAssets::FileExists(path))
+        {
+            // Bundled files are read in place from the APK
+            _file = AndroidAssets::OpenFile(path);
+            if (_file == nullptr)
+            {
+                throw IOException(String::StdFormat("Unable to open '%s'", path));
+            }
+            _fileSize = AndroidAssets::GetFileSize(path);
+            _ownsFilePtr = true;
+            return;
+        }
+#    endif
         if (fileMode == FILE_MODE_OPEN)
         {
             struct stat fileStat;
@@ -0,0 +1,84 @@
+/*****************************************************************************
+ * Copyright (c) 2014-2021 OpenRCT2 developers
+ *
+ * For a complete list of all authors, please refer to contributors.md
+ * Interested in contributing? Visit https://github.com/OpenRCT2/OpenRCT2
+ *
+ * OpenRCT2 is licensed under the GNU General Public License version 3.
+ *****************************************************************************/
+#pragma once
+
+#include <algorithm>
+
+namespace OpenRCT2
+{
+    /// <summary>
+    /// Paces drawn frames to a minimum frame time. The elapsed time is bounded by the frame time itself, not by the
+    /// tick backlog, so any frame time can be reached however long it is.
+    /// </summary>
+    class FrameLimiter
+    {
+        // Frames that may be owed after a stall, more would be drawn back to back
+        static constexpr float MaxFramesBehind = 2.0f;
+
+        float _elapsed = 0.0f;
+
+    public:
+        /// <summary>
+        /// Returns the frame time for a frame rate limit reduced by a budget scale, 0 if not limited. A reduced budget
+        /// still applies without a limit, relative to the given default rate.
+        /// </summary>
+        [[nodiscard]] static float GetFrameTime(float limit, float scale, float defaultRate) noexcept
+        {
+            if (scale < 1.0f)
+            {
+                limit = (limit > 0.0f ? limit : defaultRate) * scale;
+            }
+            return limit > 0.0f ? 1.0f / limit : 0.0f;
+        }
+
+        /// <summary>
+        /// Adds the time passed since the last update.
+        /// </summary>
+        void Update(float deltaTime, float frameTime) noexcept
+        {
+            _elapsed = std::min(_elapsed + deltaTime, frameTime * MaxFramesBehind);
+        }
+
+        /// <summary>
+        /// Returns whether a frame may be drawn and if so takes its time off. A frame time of 0 is not limited.
+        /// </summary>
+        [[nodiscard]] bool IsFrameDue(float frameTime) noexcept
+        {
+            if (frameTime <= 0.0f)
+            {
+                return true;
+            }
+            if (_elapsed < frameTime)
+            {
+                return false;
+            }
+
+            // Keep the remainder so the average rate matches the frame time, without building up a backlog
+            _elapsed = std::min(_elapsed - frameTime, frameTime);
+            return true;
+        }
+
+        /// <summary>
+        /// Returns the time in seconds until the next frame is due.
+        /// </summary>
+        [[nodiscard]] float GetTimeUntilFrame(float frameTime) const noexcept
+        {
+            return std::max(frameTime - _elapsed, 0.0f);
+        }
+
+        /// <summary>
+        /// Makes the next frame due right away.
+        /// </summary>
+        void MakeDue(float frameTime) noexcept
+        {
+            _elapsed = frameTime;
+        }
+    };
+
+} // namespace OpenRCT2
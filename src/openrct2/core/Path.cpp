@@ -12,6 +12,7 @@
 #include "../localisation/Language.h"
 #include "../platform/Platform.h"
 #include "../util/Util.h"
+#include "AndroidAssets.h"
 #include "File.h"
 #include "FileSystem.hpp"
 #include "Memory.hpp"
@@ -60,6 +61,12 @@ namespace Path
 
     bool DirectoryExists(u8string_view path)
     {
+#ifdef __ANDROID__
+        if (AndroidAssets::DirectoryExists(path))
+        {
+            return true;
+        }
+#endif
         std::error_code ec;
         const auto result = fs::is_directory(fs::u8path(path), ec);
         return result && ec.value() == 0;
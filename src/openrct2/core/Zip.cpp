@@ -65,6 +65,17 @@ bool IZipArchive::Exists(std::string_view path) const
     return GetIndexFromPath(path).has_value();
 }
 
+std::vector<std::vector<uint8_t>> IZipArchive::GetFilesData(const std::vector<std::string_view>& paths) const
+{
+    std::vector<std::vector<uint8_t>> result;
+    result.reserve(paths.size());
+    for (auto path : paths)
+    {
+        result.push_back(GetFileData(path));
+    }
+    return result;
+}
+
 #ifndef __ANDROID__
 
 class ZipArchive final : public IZipArchive
@@ -37,6 +37,12 @@ struct IZipArchive
     [[nodiscard]] virtual std::vector<uint8_t> GetFileData(std::string_view path) const abstract;
     [[nodiscard]] virtual std::unique_ptr<OpenRCT2::IStream> GetFileStream(std::string_view path) const abstract;
 
+    /**
+     * Reads several files, which some implementations do with fewer calls than reading each file in turn.
+     * Files that do not exist come back empty.
+     */
+    [[nodiscard]] virtual std::vector<std::vector<uint8_t>> GetFilesData(const std::vector<std::string_view>& paths) const;
+
     /**
      * Creates or overwrites a file within the zip archive to the given data buffer.
      * @param path The path of the file within the zip.
@@ -9,117 +9,635 @@
 
 #ifdef __ANDROID__
 
+#    include "../platform/Metrics.h"
 #    include "../platform/Platform.h"
+#    include "AndroidAssets.h"
 #    include "IStream.hpp"
 #    include "MemoryStream.h"
 #    include "Zip.h"
 
 #    include <SDL.h>
+#    include <algorithm>
+#    include <atomic>
+#    include <cctype>
+#    include <cerrno>
+#    include <cstdio>
+#    include <cstring>
+#    include <dirent.h>
+#    include <fcntl.h>
 #    include <jni.h>
+#    include <mutex>
+#    include <sys/mman.h>
+#    include <sys/stat.h>
+#    include <unistd.h>
+#    include <unordered_map>
 
 using namespace OpenRCT2;
 
+namespace
+{
+    /**
+     * Class and method IDs of io.openrct2.ZipArchive, looked up once instead of on every call.
+     */
+    struct ZipArchiveJni
+    {
+        jclass Class{};
+        jclass ByteBufferClass{};
+        jmethodID Constructor{};
+        jmethodID Close{};
+        jmethodID GetFileNames{};
+        jmethodID GetFileSizes{};
+        jmethodID GetFileCrcs{};
+        jmethodID GetFileMethods{};
+        jmethodID GetFileDataOffsets{};
+        jmethodID GetFile{};
+        jmethodID GetFiles{};
+        jmethodID OpenFile{};
+        jmethodID EntryStreamRead{};
+        jmethodID EntryStreamClose{};
+    };
+
+    const ZipArchiveJni& GetZipArchiveJni(JNIEnv* env)
+    {
+        static ZipArchiveJni jni;
+        static std::once_flag flag;
+        std::call_once(flag, [env]() {
+            jclass zipClass = Platform::AndroidFindClass(env, "io/openrct2/ZipArchive");
+            jni.Class = static_cast<jclass>(env->NewGlobalRef(zipClass));
+            jni.Constructor = env->GetMethodID(zipClass, "<init>", "(Ljava/lang/String;)V");
+            jni.Close = env->GetMethodID(zipClass, "close", "()V");
+            jni.GetFileNames = env->GetMethodID(zipClass, "getFileNames", "()[B");
+            jni.GetFileSizes = env->GetMethodID(zipClass, "getFileSizes", "()[J");
+            jni.GetFileCrcs = env->GetMethodID(zipClass, "getFileCrcs", "()[J");
+            jni.GetFileMethods = env->GetMethodID(zipClass, "getFileMethods", "()[I");
+            jni.GetFileDataOffsets = env->GetMethodID(zipClass, "getFileDataOffsets", "()[J");
+            jni.GetFile = env->GetMethodID(zipClass, "getFile", "(ILjava/nio/ByteBuffer;)J");
+            jni.GetFiles = env->GetMethodID(zipClass, "getFiles", "([I[Ljava/nio/ByteBuffer;)[J");
+            jni.OpenFile = env->GetMethodID(zipClass, "openFile", "(I)Lio/openrct2/ZipArchive$EntryStream;");
+            env->DeleteLocalRef(zipClass);
+
+            jclass entryStreamClass = Platform::AndroidFindClass(env, "io/openrct2/ZipArchive$EntryStream");
+            jni.EntryStreamRead = env->GetMethodID(entryStreamClass, "read", "(Ljava/nio/ByteBuffer;)I");
+            jni.EntryStreamClose = env->GetMethodID(entryStreamClass, "close", "()V");
+            env->DeleteLocalRef(entryStreamClass);
+
+            jclass byteBufferClass = env->FindClass("java/nio/ByteBuffer");
+            jni.ByteBufferClass = static_cast<jclass>(env->NewGlobalRef(byteBufferClass));
+            env->DeleteLocalRef(byteBufferClass);
+        });
+        return jni;
+    }
+
+    bool ClearJavaException(JNIEnv* env)
+    {
+        if (env->ExceptionCheck())
+        {
+            env->ExceptionDescribe();
+            env->ExceptionClear();
+            return true;
+        }
+        return false;
+    }
+
+    std::vector<int64_t> GetLongArray(JNIEnv* env, jobject zip, jmethodID method)
+    {
+        std::vector<int64_t> result;
+        auto jniArray = static_cast<jlongArray>(env->CallObjectMethod(zip, method));
+        if (ClearJavaException(env) || jniArray == nullptr)
+        {
+            return result;
+        }
+        result.resize(static_cast<size_t>(env->GetArrayLength(jniArray)));
+        env->GetLongArrayRegion(jniArray, 0, static_cast<jsize>(result.size()), reinterpret_cast<jlong*>(result.data()));
+        env->DeleteLocalRef(jniArray);
+        return result;
+    }
+
+    std::vector<int32_t> GetIntArray(JNIEnv* env, jobject zip, jmethodID method)
+    {
+        std::vector<int32_t> result;
+        auto jniArray = static_cast<jintArray>(env->CallObjectMethod(zip, method));
+        if (ClearJavaException(env) || jniArray == nullptr)
+        {
+            return result;
+        }
+        result.resize(static_cast<size_t>(env->GetArrayLength(jniArray)));
+        env->GetIntArrayRegion(jniArray, 0, static_cast<jsize>(result.size()), reinterpret_cast<jint*>(result.data()));
+        env->DeleteLocalRef(jniArray);
+        return result;
+    }
+
+    // Compression method of java.util.zip.ZipEntry.DEFLATED
+    constexpr int32_t ZIP_METHOD_DEFLATED = 8;
+
+    // Entry names are matched case-insensitively, like the Java side does
+    std::string FoldName(std::string_view name)
+    {
+        std::string result(name);
+        std::transform(result.begin(), result.end(), result.begin(), [](unsigned char c) { return std::tolower(c); });
+        return result;
+    }
+
+    /**
+     * Entries inflated on a previous run, kept in the app's cache directory so that they can be read
+     * back without going through JNI. Each entry is stored raw in its own file, named after a hash of
+     * the archive path, its modification time and the entry's CRC-32 and size. The least recently
+     * used files are removed once the cache grows beyond MaxSize.
+     */
+    class DecompressedEntryCache
+    {
+    public:
+        static constexpr uint64_t MaxSize = 64 * 1024 * 1024;
+
+        // Smaller entries are cheaper to inflate again than to open as a separate file
+        static constexpr int64_t MinEntrySize = 4 * 1024;
+
+    private:
+        // Set once, before _available
+        std::string _directory;
+        std::atomic<bool> _available{};
+        std::mutex _mutex;
+        bool _scanned{};
+        uint64_t _totalSize{};
+
+    public:
+        static DecompressedEntryCache& Get()
+        {
+            static DecompressedEntryCache cache;
+            return cache;
+        }
+
+        /**
+         * Keeps the cache in a directory below cacheDirectory. Entries are neither read nor written until then.
+         */
+        void SetDirectory(std::string_view cacheDirectory)
+        {
+            std::lock_guard<std::mutex> lock(_mutex);
+            if (_available.load(std::memory_order_relaxed))
+            {
+                return;
+            }
+
+            std::string directory = std::string(cacheDirectory) + "/zip";
+            if (mkdir(directory.c_str(), 0700) != 0 && errno != EEXIST)
+            {
+                log_warning("Decompressed zip entry cache is not available");
+                return;
+            }
+            _directory = directory;
+            _available.store(true, std::memory_order_release);
+        }
+
+        bool IsAvailable() const
+        {
+            return _available.load(std::memory_order_acquire);
+        }
+
+        std::string GetEntryPath(const std::string& archivePath, int64_t archiveLastModified, int64_t crc, int64_t size) const
+        {
+            // FNV-1a
+            uint64_t hash = 14695981039346656037ULL;
+            auto add = [&hash](const void* data, size_t length) {
+                auto bytes = static_cast<const uint8_t*>(data);
+                for (size_t i = 0; i < length; i++)
+                {
+                    hash = (hash ^ bytes[i]) * 1099511628211ULL;
+                }
+            };
+            add(archivePath.data(), archivePath.size());
+            add(&archiveLastModified, sizeof(archiveLastModified));
+            add(&crc, sizeof(crc));
+            add(&size, sizeof(size));
+
+            char name[32];
+            snprintf(name, sizeof(name), "%016llx", static_cast<unsigned long long>(hash));
+            return _directory + "/" + name;
+        }
+
+        bool TryRead(const std::string& entryPath, int64_t size, std::vector<uint8_t>& data)
+        {
+            int fd = open(entryPath.c_str(), O_RDONLY | O_CLOEXEC);
+            if (fd == -1)
+            {
+                return false;
+            }
+
+            bool result = false;
+            struct stat fileStat;
+            if (fstat(fd, &fileStat) == 0 && fileStat.st_size == size)
+            {
+                data.resize(static_cast<size_t>(size));
+                size_t position = 0;
+                ssize_t numBytesRead;
+                while (position < data.size()
+                       && (numBytesRead = read(fd, data.data() + position, data.size() - position)) > 0)
+                {
+                    position += static_cast<size_t>(numBytesRead);
+                }
+                result = position == data.size();
+
+                // The modification time records when the entry was last used
+                futimens(fd, nullptr);
+            }
+            close(fd);
+            return result;
+        }
+
+        void Write(const std::string& entryPath, const std::vector<uint8_t>& data)
+        {
+            // Write to a temporary file first so that readers never see a partial entry
+            std::string tempPath = entryPath + ".XXXXXX";
+            int fd = mkstemp(tempPath.data());
+            if (fd == -1)
+            {
+                return;
+            }
+
+            size_t position = 0;
+            ssize_t numBytesWritten;
+            while (position < data.size()
+                   && (numBytesWritten = write(fd, data.data() + position, data.size() - position)) > 0)
+            {
+                position += static_cast<size_t>(numBytesWritten);
+            }
+            close(fd);
+
+            if (position != data.size() || rename(tempPath.c_str(), entryPath.c_str()) != 0)
+            {
+                unlink(tempPath.c_str());
+                return;
+            }
+
+            std::lock_guard<std::mutex> lock(_mutex);
+            if (!_scanned)
+            {
+                // The first write of a run measures what earlier runs left behind
+                _scanned = true;
+                Trim(MaxSize);
+                return;
+            }
+            _totalSize += data.size();
+            if (_totalSize > MaxSize)
+            {
+                Trim(MaxSize * 3 / 4);
+            }
+        }
+
+    private:
+        /**
+         * Removes the least recently used entries until the cache is no larger than targetSize.
+         */
+        void Trim(uint64_t targetSize)
+        {
+            struct CachedEntry
+            {
+                std::string Path;
+                uint64_t Size;
+                time_t LastUsed;
+            };
+
+            std::vector<CachedEntry> entries;
+            _totalSize = 0;
+            DIR* dir = opendir(_directory.c_str());
+            if (dir == nullptr)
+            {
+                return;
+            }
+            struct dirent* node;
+            while ((node = readdir(dir)) != nullptr)
+            {
+                auto path = _directory + "/" + node->d_name;
+                struct stat fileStat;
+                if (stat(path.c_str(), &fileStat) == 0 && S_ISREG(fileStat.st_mode))
+                {
+                    entries.push_back({ path, static_cast<uint64_t>(fileStat.st_size), fileStat.st_mtime });
+                    _totalSize += static_cast<uint64_t>(fileStat.st_size);
+                }
+            }
+            closedir(dir);
+
+            std::sort(entries.begin(), entries.end(), [](const CachedEntry& a, const CachedEntry& b) {
+                return a.LastUsed < b.LastUsed;
+            });
+            for (const auto& entry : entries)
+            {
+                if (_totalSize <= targetSize)
+                {
+                    break;
+                }
+                if (unlink(entry.Path.c_str()) == 0)
+                {
+                    _totalSize -= entry.Size;
+                }
+            }
+        }
+    };
+} // namespace
+
 class ZipArchive final : public IZipArchive
 {
 private:
     jobject _zip;
+    std::string _path;
+
+    // Entry metadata, fetched in bulk when the archive is opened so listing needs no JNI calls
+    std::vector<std::string> _fileNames;
+    std::vector<int64_t> _fileSizes;
+    std::vector<int64_t> _fileCrcs;
+    std::vector<int32_t> _fileMethods;
+    std::unordered_map<std::string, jint> _fileIndices;
+    int64_t _lastModified{};
+
+    // Data offsets of STORED entries, fetched in bulk on first use
+    mutable std::vector<int64_t> _fileDataOffsets;
+    mutable std::once_flag _fileDataOffsetsFlag;
+
+    // Read-only mapping of the whole archive, created once on first access to a STORED entry.
+    // Archives may be read from several threads at once, the Java side pools its own handles.
+    mutable void* _mappedData = MAP_FAILED;
+    mutable size_t _mappedSize = 0;
+    mutable std::once_flag _mappingFlag;
 
 public:
     ZipArchive(std::string_view path, ZIP_ACCESS access)
+        : _path(path)
     {
         // retrieve the JNI environment.
         JNIEnv* env = (JNIEnv*)SDL_AndroidGetJNIEnv();
+        const auto& jni = GetZipArchiveJni(env);
+
+        jstring jniPath = env->NewStringUTF(_path.c_str());
+        auto start = Metrics::Clock::now();
+        jobject zip = env->NewObject(jni.Class, jni.Constructor, jniPath);
+        Metrics::Record(Metrics::Metric::ZipArchiveOpen, start);
+        env->DeleteLocalRef(jniPath);
+        if (ClearJavaException(env) || zip == nullptr)
+        {
+            throw std::runtime_error("Unable to open zip archive: " + _path);
+        }
 
-        jclass jniClass = Platform::AndroidFindClass(env, "io/openrct2/ZipArchive");
-        jmethodID constructor = env->GetMethodID(jniClass, "<init>", "(Ljava/lang/String;)V");
+        _zip = env->NewGlobalRef(zip);
+        env->DeleteLocalRef(zip);
 
-        jstring jniPath = env->NewStringUTF(path.data());
+        auto jniNames = static_cast<jbyteArray>(env->CallObjectMethod(_zip, jni.GetFileNames));
+        if (ClearJavaException(env) || jniNames == nullptr)
+        {
+            env->CallVoidMethod(_zip, jni.Close);
+            ClearJavaException(env);
+            env->DeleteGlobalRef(_zip);
+            throw std::runtime_error("Unable to read zip archive: " + _path);
+        }
+        auto namesLength = env->GetArrayLength(jniNames);
+        std::vector<char> names(static_cast<size_t>(namesLength));
+        env->GetByteArrayRegion(jniNames, 0, namesLength, reinterpret_cast<jbyte*>(names.data()));
+        env->DeleteLocalRef(jniNames);
+        for (auto it = names.begin(); it != names.end();)
+        {
+            auto end = std::find(it, names.end(), '\0');
+            _fileNames.emplace_back(it, end);
+            it = end == names.end() ? end : end + 1;
+        }
 
-        // TODO: Catch exceptions. Should probably be done on Java side, and just return null from a static method
-        jobject zip = env->NewObject(jniClass, constructor, jniPath);
+        _fileSizes = GetLongArray(env, _zip, jni.GetFileSizes);
+        _fileSizes.resize(_fileNames.size(), -1);
+        _fileCrcs = GetLongArray(env, _zip, jni.GetFileCrcs);
+        _fileCrcs.resize(_fileNames.size(), -1);
+        _fileMethods = GetIntArray(env, _zip, jni.GetFileMethods);
+        _fileMethods.resize(_fileNames.size(), -1);
 
-        _zip = env->NewGlobalRef(zip);
+        // Look entries up natively, so that reading a cached entry needs no JNI calls at all
+        for (size_t i = 0; i < _fileNames.size(); i++)
+        {
+            _fileIndices.emplace(FoldName(_fileNames[i]), static_cast<jint>(i));
+        }
+
+        struct stat fileStat;
+        if (stat(_path.c_str(), &fileStat) == 0)
+        {
+            _lastModified = static_cast<int64_t>(fileStat.st_mtime);
+        }
     }
 
     ~ZipArchive() override
     {
         // retrieve the JNI environment.
         JNIEnv* env = (JNIEnv*)SDL_AndroidGetJNIEnv();
+        const auto& jni = GetZipArchiveJni(env);
 
-        jclass zipClass = env->GetObjectClass(_zip);
-        jmethodID closeMethod = env->GetMethodID(zipClass, "close", "()V");
-
-        env->CallVoidMethod(_zip, closeMethod);
+        auto start = Metrics::Clock::now();
+        env->CallVoidMethod(_zip, jni.Close);
+        Metrics::Record(Metrics::Metric::ZipArchiveClose, start);
+        ClearJavaException(env);
 
         env->DeleteGlobalRef(_zip);
+
+        if (_mappedData != MAP_FAILED)
+        {
+            munmap(_mappedData, _mappedSize);
+        }
     }
 
     size_t GetNumFiles() const override
     {
-        // retrieve the JNI environment.
-        JNIEnv* env = (JNIEnv*)SDL_AndroidGetJNIEnv();
+        return _fileNames.size();
+    }
 
-        jclass zipClass = env->GetObjectClass(_zip);
-        jmethodID fileCountMethod = env->GetMethodID(zipClass, "getNumFiles", "()I");
+    std::string GetFileName(size_t index) const override
+    {
+        if (index >= _fileNames.size())
+        {
+            return {};
+        }
+        return _fileNames[index];
+    }
 
-        return static_cast<size_t>(env->CallIntMethod(_zip, fileCountMethod));
+    uint64_t GetFileSize(size_t index) const override
+    {
+        if (index >= _fileSizes.size())
+        {
+            return static_cast<uint64_t>(-1);
+        }
+        return static_cast<uint64_t>(_fileSizes[index]);
     }
 
-    std::string GetFileName(size_t index) const override
+    std::vector<uint8_t> GetFileData(std::string_view path) const override
     {
         // retrieve the JNI environment.
         JNIEnv* env = (JNIEnv*)SDL_AndroidGetJNIEnv();
+        const auto& jni = GetZipArchiveJni(env);
 
-        jclass zipClass = env->GetObjectClass(_zip);
-        jmethodID fileNameMethod = env->GetMethodID(zipClass, "getFileName", "(I)Ljava/lang/String;");
+        jint index = GetFileIndex(path);
+        if (index < 0)
+        {
+            return {};
+        }
 
-        jstring jniString = (jstring)env->CallObjectMethod(_zip, fileNameMethod, (jint)index);
+        int64_t dataSize = _fileSizes[index];
+        if (dataSize < 0)
+        {
+            // Size is not recorded in the archive, so read the entry in chunks instead
+            std::vector<uint8_t> data;
+            ZipItemStream stream(_zip, index, dataSize);
+            std::vector<uint8_t> buffer(ZipItemStream::ChunkSize);
+            uint64_t readBytes;
+            while ((readBytes = stream.TryRead(buffer.data(), buffer.size())) != 0)
+            {
+                data.insert(data.end(), buffer.begin(), buffer.begin() + readBytes);
+            }
+            return data;
+        }
+        if (dataSize == 0)
+        {
+            return {};
+        }
 
-        const char* jniChars = env->GetStringUTFChars(jniString, nullptr);
+        auto storedData = GetStoredFileData(env, index);
+        if (storedData != nullptr)
+        {
+            return std::vector<uint8_t>(storedData, storedData + dataSize);
+        }
 
-        utf8* string = (char*)malloc(strlen(jniChars) + 1);
-        std::memcpy((void*)string, jniChars, strlen(jniChars));
-        string[strlen(jniChars)] = 0x00;
+        // Entries inflated on a previous run are read back from the cache
+        auto& cache = DecompressedEntryCache::Get();
+        auto cachePath = GetCachedEntryPath(cache, index);
+        std::vector<uint8_t> data;
+        if (!cachePath.empty() && cache.TryRead(cachePath, dataSize, data))
+        {
+            return data;
+        }
+
+        // Java inflates straight into our buffer, so the data is only copied once
+        data.resize(static_cast<size_t>(dataSize));
+        jobject buffer = env->NewDirectByteBuffer(data.data(), dataSize);
+        auto start = Metrics::Clock::now();
+        jlong numBytesRead = env->CallLongMethod(_zip, jni.GetFile, index, buffer);
+        Metrics::Record(Metrics::Metric::ZipArchiveGetFile, start);
+        env->DeleteLocalRef(buffer);
 
-        env->ReleaseStringUTFChars(jniString, jniChars);
+        if (ClearJavaException(env) || numBytesRead < 0)
+        {
+            return {};
+        }
 
-        return string;
+        data.resize(static_cast<size_t>(numBytesRead));
+        if (!cachePath.empty() && numBytesRead == dataSize)
+        {
+            cache.Write(cachePath, data);
+        }
+        return data;
     }
 
-    uint64_t GetFileSize(size_t index) const override
+    std::vector<std::vector<uint8_t>> GetFilesData(const std::vector<std::string_view>& paths) const override
     {
         // retrieve the JNI environment.
         JNIEnv* env = (JNIEnv*)SDL_AndroidGetJNIEnv();
+        const auto& jni = GetZipArchiveJni(env);
+        auto& cache = DecompressedEntryCache::Get();
+
+        // Entries which are neither mapped nor cached are inflated by Java with a single call, each straight into its
+        // own result so the data is only copied once
+        std::vector<std::vector<uint8_t>> result(paths.size());
+        std::vector<size_t> pending;
+        std::vector<jint> pendingIndices;
+        for (size_t i = 0; i < paths.size(); i++)
+        {
+            jint index = GetFileIndex(paths[i]);
+            if (index < 0)
+            {
+                continue;
+            }
+            if (_fileSizes[index] <= 0)
+            {
+                // Empty, or read in chunks as the size is not recorded
+                result[i] = GetFileData(paths[i]);
+                continue;
+            }
+
+            int64_t dataSize = _fileSizes[index];
+            auto storedData = GetStoredFileData(env, index);
+            if (storedData != nullptr)
+            {
+                result[i].assign(storedData, storedData + dataSize);
+                continue;
+            }
+            auto cachePath = GetCachedEntryPath(cache, index);
+            if (!cachePath.empty() && cache.TryRead(cachePath, dataSize, result[i]))
+            {
+                continue;
+            }
+
+            pending.push_back(i);
+            pendingIndices.push_back(index);
+        }
+        if (pending.empty())
+        {
+            return result;
+        }
 
-        jclass zipClass = env->GetObjectClass(_zip);
-        jmethodID fileSizeMethod = env->GetMethodID(zipClass, "getFileSize", "(I)J");
+        const auto numPending = static_cast<jsize>(pending.size());
+        jintArray indexArray = env->NewIntArray(numPending);
+        env->SetIntArrayRegion(indexArray, 0, numPending, pendingIndices.data());
+        jobjectArray bufferArray = env->NewObjectArray(numPending, jni.ByteBufferClass, nullptr);
+        for (jsize i = 0; i < numPending; i++)
+        {
+            auto& entryData = result[pending[i]];
+            entryData.resize(static_cast<size_t>(_fileSizes[pendingIndices[i]]));
+            jobject buffer = env->NewDirectByteBuffer(entryData.data(), static_cast<jlong>(entryData.size()));
+            env->SetObjectArrayElement(bufferArray, i, buffer);
+            env->DeleteLocalRef(buffer);
+        }
+        auto start = Metrics::Clock::now();
+        auto numBytesArray = static_cast<jlongArray>(env->CallObjectMethod(_zip, jni.GetFiles, indexArray, bufferArray));
+        Metrics::Record(Metrics::Metric::ZipArchiveGetFiles, start);
+        env->DeleteLocalRef(bufferArray);
+        env->DeleteLocalRef(indexArray);
+
+        std::vector<jlong> numBytesRead(pending.size(), -1);
+        if (!ClearJavaException(env) && numBytesArray != nullptr)
+        {
+            env->GetLongArrayRegion(numBytesArray, 0, numPending, numBytesRead.data());
+            env->DeleteLocalRef(numBytesArray);
+        }
 
-        return (size_t)env->CallLongMethod(_zip, fileSizeMethod, (jint)index);
+        for (size_t i = 0; i < pending.size(); i++)
+        {
+            auto& entryData = result[pending[i]];
+            if (numBytesRead[i] <= 0)
+            {
+                entryData.clear();
+                continue;
+            }
+
+            entryData.resize(static_cast<size_t>(numBytesRead[i]));
+            jint index = pendingIndices[i];
+            auto cachePath = GetCachedEntryPath(cache, index);
+            if (!cachePath.empty() && numBytesRead[i] == _fileSizes[index])
+            {
+                cache.Write(cachePath, entryData);
+            }
+        }
+        return result;
     }
 
-    std::vector<uint8_t> GetFileData(std::string_view path) const override
+    std::unique_ptr<IStream> GetFileStream(std::string_view path) const override
     {
         // retrieve the JNI environment.
         JNIEnv* env = (JNIEnv*)SDL_AndroidGetJNIEnv();
 
-        jclass zipClass = env->GetObjectClass(_zip);
-        jstring javaPath = env->NewStringUTF(path.data());
-        jmethodID indexMethod = env->GetMethodID(zipClass, "getFileIndex", "(Ljava/lang/String;)I");
-        jint index = env->CallIntMethod(_zip, indexMethod, javaPath);
-
-        jmethodID fileMethod = env->GetMethodID(zipClass, "getFile", "(I)J");
-        jlong ptr = env->CallLongMethod(_zip, fileMethod, index);
-
-        auto dataPtr = reinterpret_cast<uint8_t*>(ptr);
-        auto dataSize = this->GetFileSize(index);
+        jint index = GetFileIndex(path);
+        if (index < 0)
+        {
+            return {};
+        }
 
-        return std::vector<uint8_t>(dataPtr, dataPtr + dataSize);
-    }
+        // Uncompressed entries are read in place from the mapped archive
+        auto storedData = GetStoredFileData(env, index);
+        if (storedData != nullptr)
+        {
+            return std::make_unique<MemoryStream>(storedData, static_cast<size_t>(_fileSizes[index]));
+        }
 
-    std::unique_ptr<IStream> GetFileStream(std::string_view path) const override
-    {
-        auto data = GetFileData(path);
-        return std::make_unique<MemoryStream>(std::move(data));
+        return std::make_unique<ZipItemStream>(_zip, index, _fileSizes[index]);
     }
 
     void SetFileData(std::string_view path, std::vector<uint8_t>&& data) override
@@ -136,13 +654,325 @@ public:
     {
         STUB();
     }
+
+private:
+    /**
+     * Returns the path the inflated entry is kept at in the cache, or an empty string if the entry is not cached.
+     * Only compressed entries are cached, stored ones are read in place.
+     */
+    std::string GetCachedEntryPath(const DecompressedEntryCache& cache, jint index) const
+    {
+        int64_t dataSize = _fileSizes[index];
+        if (_fileMethods[index] != ZIP_METHOD_DEFLATED || !cache.IsAvailable()
+            || dataSize < DecompressedEntryCache::MinEntrySize || _fileCrcs[index] < 0 || _lastModified == 0)
+        {
+            return {};
+        }
+        return cache.GetEntryPath(_path, _lastModified, _fileCrcs[index], dataSize);
+    }
+
+    jint GetFileIndex(std::string_view path) const
+    {
+        auto it = _fileIndices.find(FoldName(path));
+        if (it == _fileIndices.end())
+        {
+            return -1;
+        }
+        return it->second;
+    }
+
+    /**
+     * Returns a pointer to the data of an uncompressed entry within the mapped archive, or nullptr
+     * if the entry is compressed or the archive can not be mapped.
+     */
+    const uint8_t* GetStoredFileData(JNIEnv* env, jint index) const
+    {
+        int64_t dataSize = _fileSizes[index];
+        if (dataSize <= 0 || _fileMethods[index] == ZIP_METHOD_DEFLATED)
+        {
+            return nullptr;
+        }
+
+        std::call_once(_fileDataOffsetsFlag, [this, env]() {
+            const auto& jni = GetZipArchiveJni(env);
+            auto jniOffsets = static_cast<jlongArray>(env->CallObjectMethod(_zip, jni.GetFileDataOffsets));
+            if (ClearJavaException(env) || jniOffsets == nullptr)
+            {
+                return;
+            }
+            _fileDataOffsets.resize(static_cast<size_t>(env->GetArrayLength(jniOffsets)));
+            env->GetLongArrayRegion(
+                jniOffsets, 0, static_cast<jsize>(_fileDataOffsets.size()), reinterpret_cast<jlong*>(_fileDataOffsets.data()));
+            env->DeleteLocalRef(jniOffsets);
+        });
+
+        if (static_cast<size_t>(index) >= _fileDataOffsets.size() || _fileDataOffsets[index] < 0)
+        {
+            return nullptr;
+        }
+        int64_t offset = _fileDataOffsets[index];
+
+        std::call_once(_mappingFlag, [this]() {
+            int fd = open(_path.c_str(), O_RDONLY | O_CLOEXEC);
+            if (fd != -1)
+            {
+                struct stat fileStat;
+                if (fstat(fd, &fileStat) == 0 && fileStat.st_size > 0)
+                {
+                    _mappedSize = static_cast<size_t>(fileStat.st_size);
+                    _mappedData = mmap(nullptr, _mappedSize, PROT_READ, MAP_PRIVATE, fd, 0);
+                }
+                close(fd);
+            }
+
+            if (_mappedData == MAP_FAILED)
+            {
+                log_warning("Unable to map zip archive: %s", _path.c_str());
+            }
+        });
+
+        if (_mappedData == MAP_FAILED || static_cast<uint64_t>(offset + dataSize) > _mappedSize)
+        {
+            return nullptr;
+        }
+
+        return static_cast<const uint8_t*>(_mappedData) + offset;
+    }
+
+    /**
+     * Reads a zip entry in fixed-size chunks through a reusable native buffer, so the whole entry
+     * never has to be held in memory at once.
+     */
+    class ZipItemStream final : public IStream
+    {
+    public:
+        static constexpr size_t ChunkSize = 64 * 1024;
+
+    private:
+        jobject _zip;
+        jint _index;
+        jobject _entryStream{};
+        jobject _chunkBuffer{};
+        std::vector<uint8_t> _chunk;
+        size_t _chunkPos{};
+        size_t _chunkLen{};
+        uint64_t _pos{};
+        uint64_t _len{};
+        bool _eof{};
+
+    public:
+        ZipItemStream(jobject zip, jint index, int64_t fileSize)
+            : _zip(zip)
+            , _index(index)
+            , _chunk(ChunkSize)
+            , _len(fileSize < 0 ? 0 : static_cast<uint64_t>(fileSize))
+        {
+            // retrieve the JNI environment.
+            JNIEnv* env = (JNIEnv*)SDL_AndroidGetJNIEnv();
+
+            jobject chunkBuffer = env->NewDirectByteBuffer(_chunk.data(), _chunk.size());
+            _chunkBuffer = env->NewGlobalRef(chunkBuffer);
+            env->DeleteLocalRef(chunkBuffer);
+
+            Reset();
+        }
+
+        ~ZipItemStream() override
+        {
+            Close();
+
+            // retrieve the JNI environment.
+            JNIEnv* env = (JNIEnv*)SDL_AndroidGetJNIEnv();
+            env->DeleteGlobalRef(_chunkBuffer);
+        }
+
+        bool CanRead() const override
+        {
+            return true;
+        }
+
+        bool CanWrite() const override
+        {
+            return false;
+        }
+
+        uint64_t GetLength() const override
+        {
+            // Entries without a recorded size only know their length once fully read
+            return std::max(_len, _pos);
+        }
+
+        uint64_t GetPosition() const override
+        {
+            return _pos;
+        }
+
+        void SetPosition(uint64_t position) override
+        {
+            if (position > _pos)
+            {
+                // Read to seek forwards
+                Skip(position - _pos);
+            }
+            else if (position < _pos)
+            {
+                // Can not seek backwards, start from the beginning
+                Reset();
+                Skip(position);
+            }
+        }
+
+        void Seek(int64_t offset, int32_t origin) override
+        {
+            switch (origin)
+            {
+                case STREAM_SEEK_BEGIN:
+                    SetPosition(offset);
+                    break;
+                case STREAM_SEEK_CURRENT:
+                    SetPosition(_pos + offset);
+                    break;
+                case STREAM_SEEK_END:
+                    SetPosition(_len - offset);
+                    break;
+            }
+        }
+
+        void Read(void* buffer, uint64_t length) override
+        {
+            uint64_t readBytes = TryRead(buffer, length);
+            if (readBytes != length)
+            {
+                throw IOException("Attempted to read past end of file.");
+            }
+        }
+
+        void Write(const void* buffer, uint64_t length) override
+        {
+            throw IOException("Stream is read-only.");
+        }
+
+        uint64_t TryRead(void* buffer, uint64_t length) override
+        {
+            auto dst = static_cast<uint8_t*>(buffer);
+            uint64_t readBytes = 0;
+            while (readBytes < length)
+            {
+                if (_chunkPos == _chunkLen && !ReadChunk())
+                {
+                    break;
+                }
+
+                auto copyLen = std::min<uint64_t>(length - readBytes, _chunkLen - _chunkPos);
+                std::memcpy(dst + readBytes, _chunk.data() + _chunkPos, static_cast<size_t>(copyLen));
+                _chunkPos += static_cast<size_t>(copyLen);
+                readBytes += copyLen;
+            }
+
+            _pos += readBytes;
+            return readBytes;
+        }
+
+        const void* GetData() const override
+        {
+            return nullptr;
+        }
+
+    private:
+        void Close()
+        {
+            if (_entryStream != nullptr)
+            {
+                // retrieve the JNI environment.
+                JNIEnv* env = (JNIEnv*)SDL_AndroidGetJNIEnv();
+                env->CallVoidMethod(_entryStream, GetZipArchiveJni(env).EntryStreamClose);
+                ClearJavaException(env);
+                env->DeleteGlobalRef(_entryStream);
+                _entryStream = nullptr;
+            }
+        }
+
+        bool Reset()
+        {
+            Close();
+
+            _pos = 0;
+            _chunkPos = 0;
+            _chunkLen = 0;
+            _eof = true;
+
+            // retrieve the JNI environment.
+            JNIEnv* env = (JNIEnv*)SDL_AndroidGetJNIEnv();
+
+            auto start = Metrics::Clock::now();
+            jobject entryStream = env->CallObjectMethod(_zip, GetZipArchiveJni(env).OpenFile, _index);
+            Metrics::Record(Metrics::Metric::ZipArchiveOpenFile, start);
+            if (ClearJavaException(env) || entryStream == nullptr)
+            {
+                return false;
+            }
+
+            _entryStream = env->NewGlobalRef(entryStream);
+            env->DeleteLocalRef(entryStream);
+
+            _eof = false;
+            return true;
+        }
+
+        bool ReadChunk()
+        {
+            if (_eof)
+            {
+                return false;
+            }
+
+            // retrieve the JNI environment.
+            JNIEnv* env = (JNIEnv*)SDL_AndroidGetJNIEnv();
+
+            auto start = Metrics::Clock::now();
+            jint numBytesRead = env->CallIntMethod(_entryStream, GetZipArchiveJni(env).EntryStreamRead, _chunkBuffer);
+            Metrics::Record(Metrics::Metric::EntryStreamRead, start);
+            if (ClearJavaException(env))
+            {
+                numBytesRead = -1;
+            }
+
+            _chunkPos = 0;
+            if (numBytesRead <= 0)
+            {
+                _chunkLen = 0;
+                _eof = true;
+                return false;
+            }
+
+            _chunkLen = static_cast<size_t>(numBytesRead);
+            return true;
+        }
+
+        void Skip(uint64_t len)
+        {
+            while (len > 0)
+            {
+                if (_chunkPos == _chunkLen && !ReadChunk())
+                {
+                    break;
+                }
+
+                auto skipLen = std::min<uint64_t>(len, _chunkLen - _chunkPos);
+                _chunkPos += static_cast<size_t>(skipLen);
+                _pos += skipLen;
+                len -= skipLen;
+            }
+        }
+    };
 };
 
 namespace Zip
 {
     std::unique_ptr<IZipArchive> Open(std::string_view path, ZIP_ACCESS access)
     {
-        return std::make_unique<ZipArchive>(path, access);
+        // Archives bundled in the APK have to be copied out, as ZipFile can only open real files
+        return std::make_unique<ZipArchive>(AndroidAssets::GetLocalPath(path), access);
     }
 
     std::unique_ptr<IZipArchive> TryOpen(std::string_view path, ZIP_ACCESS access)
@@ -150,7 +980,7 @@ namespace Zip
         std::unique_ptr<IZipArchive> result;
         try
         {
-            result = std::make_unique<ZipArchive>(path, access);
+            result = std::make_unique<ZipArchive>(AndroidAssets::GetLocalPath(path), access);
         }
         catch (const std::exception&)
         {
@@ -159,20 +989,11 @@ namespace Zip
     }
 } // namespace Zip
 
-extern "C" {
-JNIEXPORT jlong JNICALL Java_io_openrct2_ZipArchive_allocBytes(JNIEnv* env, jclass, jbyteArray input, jint numBytes);
-}
-
-JNIEXPORT jlong JNICALL Java_io_openrct2_ZipArchive_allocBytes(JNIEnv* env, jclass, jbyteArray input, jint numBytes)
+extern "C" JNIEXPORT void JNICALL Java_io_openrct2_StartupPipeline_nativeSetCacheDirectory(JNIEnv* env, jclass, jstring path)
 {
-    jbyte* bufferPtr = env->GetByteArrayElements(input, nullptr);
-
-    void* data = Memory::Allocate<void>((size_t)numBytes);
-    std::memcpy(data, bufferPtr, numBytes);
-
-    env->ReleaseByteArrayElements(input, bufferPtr, 0);
-
-    return reinterpret_cast<uintptr_t>(data);
+    const char* pathChars = env->GetStringUTFChars(path, nullptr);
+    DecompressedEntryCache::Get().SetDirectory(pathChars);
+    env->ReleaseStringUTFChars(path, pathChars);
 }
 
 #endif // __ANDROID__
@@ -77,6 +77,13 @@ namespace OpenRCT2::Drawing
         virtual DRAWING_ENGINE_FLAGS GetFlags() abstract;
 
         virtual void InvalidateImage(uint32_t image) abstract;
+
+        /**
+         * Releases memory which is recreated on demand, such as intermediate surfaces.
+         *
+         * @return the number of bytes released.
+         */
+        virtual size_t TrimMemory() abstract;
     };
 
     struct IDrawingEngineFactory
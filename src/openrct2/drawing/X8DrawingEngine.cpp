@@ -286,6 +286,12 @@ void X8DrawingEngine::InvalidateImage([[maybe_unused]] uint32_t image)
     // Not applicable for this engine
 }
 
+size_t X8DrawingEngine::TrimMemory()
+{
+    // The frame is drawn incrementally, so it has to be kept
+    return 0;
+}
+
 rct_drawpixelinfo* X8DrawingEngine::GetDPI()
 {
     return &_bitsDPI;
@@ -111,6 +111,7 @@ namespace OpenRCT2
             rct_drawpixelinfo* GetDrawingPixelInfo() override;
             DRAWING_ENGINE_FLAGS GetFlags() override;
             void InvalidateImage(uint32_t image) override;
+            size_t TrimMemory() override;
 
             rct_drawpixelinfo* GetDPI();
 
@@ -493,26 +493,35 @@ void ImageTable::Read(IReadObjectContext* context, OpenRCT2::IStream* stream)
 
 std::vector<std::pair<std::string, Image>> ImageTable::GetImageSources(IReadObjectContext* context, json_t& jsonImages)
 {
-    std::vector<std::pair<std::string, Image>> result;
+    // Gather the distinct sources first, so that they can be read from the object in one go
+    std::vector<std::string> paths;
+    std::vector<bool> keepPalettes;
     for (auto& jsonImage : jsonImages)
     {
         if (jsonImage.is_object())
         {
             auto path = Json::GetString(jsonImage["path"]);
-            auto keepPalette = Json::GetString(jsonImage["palette"]) == "keep";
-            auto itSource = std::find_if(result.begin(), result.end(), [&path](const std::pair<std::string, Image>& item) {
-                return item.first == path;
-            });
-            if (itSource == result.end())
+            if (std::find(paths.begin(), paths.end(), path) == paths.end())
             {
-                auto imageData = context->GetData(path);
-                auto imageFormat = keepPalette ? IMAGE_FORMAT::PNG : IMAGE_FORMAT::PNG_32;
-                auto image = Imaging::ReadFromBuffer(imageData, imageFormat);
-                auto pair = std::make_pair<std::string, Image>(std::move(path), std::move(image));
-                result.push_back(std::move(pair));
+                keepPalettes.push_back(Json::GetString(jsonImage["palette"]) == "keep");
+                paths.push_back(std::move(path));
             }
         }
     }
+
+    std::vector<std::pair<std::string, Image>> result;
+    if (paths.empty())
+    {
+        return result;
+    }
+
+    auto imageData = context->GetData(std::vector<std::string_view>(paths.begin(), paths.end()));
+    for (size_t i = 0; i < paths.size(); i++)
+    {
+        auto imageFormat = keepPalettes[i] ? IMAGE_FORMAT::PNG : IMAGE_FORMAT::PNG_32;
+        auto image = Imaging::ReadFromBuffer(imageData[i], imageFormat);
+        result.emplace_back(std::move(paths[i]), std::move(image));
+    }
     return result;
 }
 
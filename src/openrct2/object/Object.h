@@ -267,6 +267,7 @@ struct IReadObjectContext
     virtual IObjectRepository& GetObjectRepository() abstract;
     virtual bool ShouldLoadImages() abstract;
     virtual std::vector<uint8_t> GetData(std::string_view path) abstract;
+    virtual std::vector<std::vector<uint8_t>> GetData(const std::vector<std::string_view>& paths) abstract;
     virtual ObjectAsset GetAsset(std::string_view path) abstract;
 
     virtual void LogVerbose(ObjectError code, const utf8* text) abstract;
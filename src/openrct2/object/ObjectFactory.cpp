@@ -48,6 +48,7 @@ struct IFileDataRetriever
 {
     virtual ~IFileDataRetriever() = default;
     virtual std::vector<uint8_t> GetData(std::string_view path) const abstract;
+    virtual std::vector<std::vector<uint8_t>> GetData(const std::vector<std::string_view>& paths) const abstract;
     virtual ObjectAsset GetAsset(std::string_view path) const abstract;
 };
 
@@ -68,6 +69,17 @@ public:
         return File::ReadAllBytes(absolutePath);
     }
 
+    std::vector<std::vector<uint8_t>> GetData(const std::vector<std::string_view>& paths) const override
+    {
+        std::vector<std::vector<uint8_t>> result;
+        result.reserve(paths.size());
+        for (auto path : paths)
+        {
+            result.push_back(GetData(path));
+        }
+        return result;
+    }
+
     ObjectAsset GetAsset(std::string_view path) const override
     {
         if (Path::IsAbsolute(path))
@@ -100,6 +112,11 @@ public:
         return _zipArchive.GetFileData(path);
     }
 
+    std::vector<std::vector<uint8_t>> GetData(const std::vector<std::string_view>& paths) const override
+    {
+        return _zipArchive.GetFilesData(paths);
+    }
+
     ObjectAsset GetAsset(std::string_view path) const override
     {
         return ObjectAsset(_path, path);
@@ -167,6 +184,15 @@ public:
         return {};
     }
 
+    std::vector<std::vector<uint8_t>> GetData(const std::vector<std::string_view>& paths) override
+    {
+        if (_fileDataRetriever != nullptr)
+        {
+            return _fileDataRetriever->GetData(paths);
+        }
+        return std::vector<std::vector<uint8_t>>(paths.size());
+    }
+
     ObjectAsset GetAsset(std::string_view path) override
     {
         if (_fileDataRetriever != nullptr)
@@ -0,0 +1,126 @@
+/*****************************************************************************
+ * Copyright (c) 2014-2020 OpenRCT2 developers
+ *
+ * For a complete list of all authors, please refer to contributors.md
+ * Interested in contributing? Visit https://github.com/OpenRCT2/OpenRCT2
+ *
+ * OpenRCT2 is licensed under the GNU General Public License version 3.
+ *****************************************************************************/
+
+#ifdef __ANDROID__
+
+#    include "Metrics.h"
+
+#    include <array>
+#    include <atomic>
+#    include <jni.h>
+
+namespace OpenRCT2::Metrics
+{
+    // Must match org.libsdl.app.Metrics.Histogram
+    constexpr size_t NUM_BUCKETS = 96;
+
+    using Histogram = std::array<std::atomic<uint64_t>, NUM_BUCKETS>;
+
+    static constexpr const char* MetricNames[] = {
+        "frame interval",
+        "draw",
+        "present",
+        "tick",
+        "ZipArchive.<init>",
+        "ZipArchive.close",
+        "ZipArchive.getFile",
+        "ZipArchive.getFiles",
+        "ZipArchive.openFile",
+        "EntryStream.read",
+    };
+    static_assert(std::size(MetricNames) == static_cast<size_t>(Metric::Count));
+
+    static std::array<Histogram, static_cast<size_t>(Metric::Count)> _histograms;
+    static std::atomic<Clock::rep> _lastFrame{ -1 };
+
+    /**
+     * Buckets are a quarter of an octave wide above 4 us, the same as org.libsdl.app.Metrics.Histogram.getBucket.
+     */
+    static size_t GetBucket(uint64_t micros)
+    {
+        if (micros < 4)
+        {
+            return static_cast<size_t>(micros);
+        }
+        auto octave = static_cast<size_t>(63 - __builtin_clzll(micros));
+        auto bucket = 4 * (octave - 1) + static_cast<size_t>((micros >> (octave - 2)) & 3);
+        return bucket < NUM_BUCKETS ? bucket : NUM_BUCKETS - 1;
+    }
+
+    static void Record(Metric metric, Clock::duration duration)
+    {
+        auto micros = std::chrono::duration_cast<std::chrono::microseconds>(duration).count();
+        auto& histogram = _histograms[static_cast<size_t>(metric)];
+        histogram[GetBucket(micros > 0 ? static_cast<uint64_t>(micros) : 0)].fetch_add(1, std::memory_order_relaxed);
+    }
+
+    void Record(Metric metric, Clock::time_point start)
+    {
+        Record(metric, Clock::now() - start);
+    }
+
+    void RecordFrame()
+    {
+        auto now = Clock::now().time_since_epoch().count();
+        auto last = _lastFrame.exchange(now, std::memory_order_relaxed);
+        if (last >= 0)
+        {
+            Record(Metric::FrameInterval, Clock::duration(now - last));
+        }
+    }
+} // namespace OpenRCT2::Metrics
+
+using namespace OpenRCT2::Metrics;
+
+extern "C" JNIEXPORT jobjectArray JNICALL Java_org_libsdl_app_Metrics_nativeGetNames(JNIEnv* env, jclass)
+{
+    jclass stringClass = env->FindClass("java/lang/String");
+    auto names = env->NewObjectArray(static_cast<jsize>(Metric::Count), stringClass, nullptr);
+    env->DeleteLocalRef(stringClass);
+    for (jsize i = 0; i < static_cast<jsize>(Metric::Count); i++)
+    {
+        jstring name = env->NewStringUTF(MetricNames[i]);
+        env->SetObjectArrayElement(names, i, name);
+        env->DeleteLocalRef(name);
+    }
+    return names;
+}
+
+extern "C" JNIEXPORT jboolean JNICALL
+    Java_org_libsdl_app_Metrics_nativeGetCounts(JNIEnv* env, jclass, jint metric, jlongArray counts)
+{
+    if (metric < 0 || metric >= static_cast<jint>(Metric::Count)
+        || static_cast<size_t>(env->GetArrayLength(counts)) != NUM_BUCKETS)
+    {
+        return JNI_FALSE;
+    }
+
+    jlong values[NUM_BUCKETS];
+    const auto& histogram = _histograms[metric];
+    for (size_t i = 0; i < NUM_BUCKETS; i++)
+    {
+        values[i] = static_cast<jlong>(histogram[i].load(std::memory_order_relaxed));
+    }
+    env->SetLongArrayRegion(counts, 0, static_cast<jsize>(NUM_BUCKETS), values);
+    return JNI_TRUE;
+}
+
+extern "C" JNIEXPORT void JNICALL Java_org_libsdl_app_Metrics_nativeReset(JNIEnv* env, jclass)
+{
+    for (auto& histogram : _histograms)
+    {
+        for (auto& count : histogram)
+        {
+            count.store(0, std::memory_order_relaxed);
+        }
+    }
+    _lastFrame.store(-1, std::memory_order_relaxed);
+}
+
+#endif
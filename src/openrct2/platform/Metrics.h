@@ -0,0 +1,75 @@
+/*****************************************************************************
+ * Copyright (c) 2014-2020 OpenRCT2 developers
+ *
+ * For a complete list of all authors, please refer to contributors.md
+ * Interested in contributing? Visit https://github.com/OpenRCT2/OpenRCT2
+ *
+ * OpenRCT2 is licensed under the GNU General Public License version 3.
+ *****************************************************************************/
+
+#pragma once
+
+#ifdef __ANDROID__
+
+#    include <chrono>
+#    include <cstdint>
+
+namespace OpenRCT2::Metrics
+{
+    using Clock = std::chrono::steady_clock;
+
+    enum class Metric : int32_t
+    {
+        FrameInterval,
+        Draw,
+        Present,
+        Tick,
+        ZipArchiveOpen,
+        ZipArchiveClose,
+        ZipArchiveGetFile,
+        ZipArchiveGetFiles,
+        ZipArchiveOpenFile,
+        EntryStreamRead,
+        Count,
+    };
+
+    /**
+     * Adds the time since start to the histogram of metric. Histograms have a fixed number of buckets, so recording
+     * never allocates or locks, and they are read by org.libsdl.app.Metrics when dumped.
+     */
+    void Record(Metric metric, Clock::time_point start);
+
+    /**
+     * Adds the time since the previous call to the frame interval histogram.
+     */
+    void RecordFrame();
+
+    class ScopedTimer
+    {
+    private:
+        Metric _metric;
+        Clock::time_point _start;
+
+    public:
+        explicit ScopedTimer(Metric metric)
+            : _metric(metric)
+            , _start(Clock::now())
+        {
+        }
+
+        ~ScopedTimer()
+        {
+            Record(_metric, _start);
+        }
+
+        ScopedTimer(const ScopedTimer&) = delete;
+        ScopedTimer& operator=(const ScopedTimer&) = delete;
+    };
+} // namespace OpenRCT2::Metrics
+
+#    define METRIC_SCOPE(metric) ::OpenRCT2::Metrics::ScopedTimer _metricScope(::OpenRCT2::Metrics::Metric::metric)
+#    define METRIC_FRAME() ::OpenRCT2::Metrics::RecordFrame()
+#else
+#    define METRIC_SCOPE(metric)
+#    define METRIC_FRAME()
+#endif // __ANDROID__
@@ -11,6 +11,8 @@
 
 #    include "Platform.h"
 
+#    include "../Context.h"
+#    include "../core/AndroidAssets.h"
 #    include "../core/Guard.hpp"
 #    include "../localisation/Language.h"
 
@@ -28,6 +30,9 @@ jmethodID AndroidClassLoader::_findClassMethod;
 
 static std::shared_ptr<AndroidClassLoader> acl;
 
+// Set by StartupPipeline once the libraries are loaded, before the read ahead or the game can run
+static std::string _installPath = "/sdcard/openrct2";
+
 namespace Platform
 {
     std::string GetFolderPath(SPECIAL_FOLDER folder)
@@ -52,7 +57,7 @@ namespace Platform
 
     std::string GetInstallPath()
     {
-        return "/sdcard/openrct2";
+        return _installPath;
     }
 
     std::string GetCurrentExecutablePath()
@@ -164,4 +169,52 @@ AndroidClassLoader::AndroidClassLoader()
     _findClassMethod = env->GetMethodID(classLoaderClass, "findClass", "(Ljava/lang/String;)Ljava/lang/Class;");
 }
 
+extern "C" JNIEXPORT void JNICALL Java_io_openrct2_StartupPipeline_nativeSetDataDirectory(JNIEnv* env, jclass, jstring path)
+{
+    const char* pathChars = env->GetStringUTFChars(path, nullptr);
+    _installPath = pathChars;
+    env->ReleaseStringUTFChars(path, pathChars);
+}
+
+extern "C" JNIEXPORT void JNICALL Java_io_openrct2_SDLActivity_nativeSetFrameRateLimit(JNIEnv* env, jclass, jfloat fps)
+{
+    context_set_frame_rate_limit(fps);
+}
+
+extern "C" JNIEXPORT void JNICALL
+    Java_io_openrct2_SDLActivity_nativeSetRenderBudget(JNIEnv* env, jclass, jfloat frameRateScale, jfloat resolutionScale)
+{
+    context_set_render_budget(frameRateScale, resolutionScale);
+}
+
+extern "C" JNIEXPORT void JNICALL Java_io_openrct2_SDLActivity_nativeSetHidden(JNIEnv* env, jclass, jboolean hidden)
+{
+    context_set_hidden(hidden);
+}
+
+extern "C" JNIEXPORT void JNICALL
+    Java_io_openrct2_SDLActivity_nativeSetHiddenTickRate(JNIEnv* env, jclass, jfloat ticksPerSecond)
+{
+    context_set_hidden_tick_rate(ticksPerSecond);
+}
+
+/**
+ * Tiers match the TRIM_ constants of io.openrct2.SDLActivity.
+ */
+extern "C" JNIEXPORT void JNICALL Java_io_openrct2_SDLActivity_nativeTrimMemory(JNIEnv* env, jclass, jint tier)
+{
+    // The asset index is safe to release from any thread, render targets are released by the game thread
+    const auto numBytes = AndroidAssets::Trim();
+    log_info("Memory trim tier %d released %zu bytes of zip indices", tier, numBytes);
+
+    if (tier >= 3)
+    {
+        context_trim_memory(MemoryTrimLevel::Critical);
+    }
+    else if (tier >= 2)
+    {
+        context_trim_memory(MemoryTrimLevel::RenderTargets);
+    }
+}
+
 #endif
@@ -11,6 +11,7 @@
 
 #    include "Platform.h"
 
+#    include "../core/AndroidAssets.h"
 #    include "../core/Memory.hpp"
 #    include "../core/Path.hpp"
 #    include "../core/String.hpp"
@@ -169,6 +170,12 @@ namespace Platform
 
     uint64_t GetLastModified(std::string_view path)
     {
+#    ifdef __ANDROID__
+        if (AndroidAssets::FileExists(path))
+        {
+            return AndroidAssets::GetLastModified(path);
+        }
+#    endif
         uint64_t lastModified = 0;
         struct stat statInfo
         {
@@ -182,6 +189,12 @@ namespace Platform
 
     uint64_t GetFileSize(std::string_view path)
     {
+#    ifdef __ANDROID__
+        if (AndroidAssets::FileExists(path))
+        {
+            return AndroidAssets::GetFileSize(path);
+        }
+#    endif
         uint64_t size = 0;
         struct stat statInfo
         {
@@ -0,0 +1,72 @@
+/*****************************************************************************
+ * Copyright (c) 2014-2020 OpenRCT2 developers
+ *
+ * For a complete list of all authors, please refer to contributors.md
+ * Interested in contributing? Visit https://github.com/OpenRCT2/OpenRCT2
+ *
+ * OpenRCT2 is licensed under the GNU General Public License version 3.
+ *****************************************************************************/
+
+#ifdef __ANDROID__
+
+#    include "../Diagnostic.h"
+#    include "../PlatformEnvironment.h"
+#    include "../core/AndroidAssets.h"
+#    include "../core/File.h"
+#    include "../core/FileStream.h"
+#    include "Platform.h"
+#    include "StartupTimeline.h"
+
+#    include <jni.h>
+#    include <vector>
+
+using namespace OpenRCT2;
+
+/**
+ * Reads a file to the end so that it is in the page cache when the game opens it.
+ */
+static void ReadThrough(const std::string& path)
+{
+    if (!File::Exists(path))
+    {
+        return;
+    }
+
+    try
+    {
+        FileStream fs(path, FILE_MODE_OPEN);
+        std::vector<uint8_t> buffer(256 * 1024);
+        while (fs.TryRead(buffer.data(), buffer.size()) == buffer.size())
+        {
+        }
+    }
+    catch (const std::exception& e)
+    {
+        log_verbose("Unable to read ahead '%s': %s", path.c_str(), e.what());
+    }
+}
+
+/**
+ * Reads ahead the files the game reads on startup, called from StartupPipeline before the game thread is started.
+ * The repositories themselves can only be loaded by the context, as they need its localisation and objects.
+ */
+extern "C" JNIEXPORT void JNICALL Java_io_openrct2_StartupPipeline_nativePreload(JNIEnv*, jclass)
+{
+    // Reading bundled files needs the class loader
+    Platform::CoreInit();
+
+    STARTUP_PHASE("Preload");
+
+    // Loading the config would need SDL's activity for the default scale, which is not set until the game thread
+    // starts. The RCT2 path is only known from the config, so its data is not read ahead.
+    auto env = CreateDefaultPlatformEnvironment();
+
+    // Title sequences are opened by path, so have to be copied out of the APK
+    AndroidAssets::Prefetch(env->GetDirectoryPath(DIRBASE::OPENRCT2, DIRID::SEQUENCE), ".parkseq");
+
+    ReadThrough(env->GetFilePath(PATHID::CACHE_OBJECTS));
+    ReadThrough(env->GetFilePath(PATHID::CACHE_TRACKS));
+    ReadThrough(env->GetFilePath(PATHID::CACHE_SCENARIOS));
+}
+
+#endif // __ANDROID__
@@ -24,6 +24,7 @@
 #include <algorithm>
 #include <array>
 #include <cstring>
+#include <mutex>
 #include <time.h>
 
 #ifdef _WIN32
@@ -36,11 +37,9 @@ namespace Platform
 {
     void CoreInit()
     {
-        static bool initialised = false;
-        if (!initialised)
-        {
-            initialised = true;
-
+        // Android reads ahead on another thread while the game may be starting
+        static std::once_flag initialised;
+        std::call_once(initialised, []() {
 #ifdef __ANDROID__
             Platform::AndroidInitClassLoader();
 #endif // __ANDROID__
@@ -48,7 +47,7 @@ namespace Platform
             InitTicks();
             bitcount_init();
             mask_init();
-        }
+        });
     }
 
     CurrencyType GetCurrencyValue(const char* currCode)
@@ -0,0 +1,96 @@
+/*****************************************************************************
+ * Copyright (c) 2014-2020 OpenRCT2 developers
+ *
+ * For a complete list of all authors, please refer to contributors.md
+ * Interested in contributing? Visit https://github.com/OpenRCT2/OpenRCT2
+ *
+ * OpenRCT2 is licensed under the GNU General Public License version 3.
+ *****************************************************************************/
+
+#ifdef __ANDROID__
+
+#    include "StartupTimeline.h"
+
+#    include "Platform.h"
+
+#    include <SDL.h>
+#    include <atomic>
+#    include <jni.h>
+#    include <mutex>
+
+namespace OpenRCT2::StartupTimeline
+{
+    struct StartupTimelineJni
+    {
+        jclass Class{};
+        jmethodID Begin{};
+        jmethodID End{};
+        jmethodID Finish{};
+    };
+
+    // Saves the JNI calls once the timeline has been written
+    static std::atomic<bool> _finished;
+
+    static const StartupTimelineJni& GetStartupTimelineJni(JNIEnv* env)
+    {
+        static StartupTimelineJni jni;
+        static std::once_flag flag;
+        std::call_once(flag, [env]() {
+            jclass timelineClass = Platform::AndroidFindClass(env, "org/libsdl/app/StartupTimeline");
+            jni.Class = static_cast<jclass>(env->NewGlobalRef(timelineClass));
+            jni.Begin = env->GetStaticMethodID(timelineClass, "begin", "(Ljava/lang/String;)V");
+            jni.End = env->GetStaticMethodID(timelineClass, "end", "()V");
+            jni.Finish = env->GetStaticMethodID(timelineClass, "finish", "()V");
+            env->DeleteLocalRef(timelineClass);
+        });
+        return jni;
+    }
+
+    void BeginPhase(const char* name)
+    {
+        JNIEnv* env = static_cast<JNIEnv*>(SDL_AndroidGetJNIEnv());
+        const auto& jni = GetStartupTimelineJni(env);
+        jstring jniName = env->NewStringUTF(name);
+        env->CallStaticVoidMethod(jni.Class, jni.Begin, jniName);
+        env->DeleteLocalRef(jniName);
+    }
+
+    void EndPhase()
+    {
+        JNIEnv* env = static_cast<JNIEnv*>(SDL_AndroidGetJNIEnv());
+        const auto& jni = GetStartupTimelineJni(env);
+        env->CallStaticVoidMethod(jni.Class, jni.End);
+    }
+
+    void Finish()
+    {
+        if (_finished.exchange(true))
+        {
+            return;
+        }
+
+        JNIEnv* env = static_cast<JNIEnv*>(SDL_AndroidGetJNIEnv());
+        const auto& jni = GetStartupTimelineJni(env);
+        env->CallStaticVoidMethod(jni.Class, jni.Finish);
+    }
+
+    ScopedPhase::ScopedPhase(const char* name)
+        : _begun(!_finished)
+    {
+        if (_begun)
+        {
+            BeginPhase(name);
+        }
+    }
+
+    ScopedPhase::~ScopedPhase()
+    {
+        // Phases begun before the timeline was written still end, so that their trace sections are closed
+        if (_begun)
+        {
+            EndPhase();
+        }
+    }
+} // namespace OpenRCT2::StartupTimeline
+
+#endif
@@ -0,0 +1,43 @@
+/*****************************************************************************
+ * Copyright (c) 2014-2020 OpenRCT2 developers
+ *
+ * For a complete list of all authors, please refer to contributors.md
+ * Interested in contributing? Visit https://github.com/OpenRCT2/OpenRCT2
+ *
+ * OpenRCT2 is licensed under the GNU General Public License version 3.
+ *****************************************************************************/
+
+#pragma once
+
+#ifdef __ANDROID__
+
+namespace OpenRCT2::StartupTimeline
+{
+    /**
+     * Phases of a cold start, recorded by org.libsdl.app.StartupTimeline until the first frame has been drawn. Calls
+     * after that do nothing.
+     */
+    void BeginPhase(const char* name);
+    void EndPhase();
+    void Finish();
+
+    class ScopedPhase
+    {
+    private:
+        bool _begun;
+
+    public:
+        explicit ScopedPhase(const char* name);
+        ~ScopedPhase();
+
+        ScopedPhase(const ScopedPhase&) = delete;
+        ScopedPhase& operator=(const ScopedPhase&) = delete;
+    };
+} // namespace OpenRCT2::StartupTimeline
+
+#    define STARTUP_PHASE(name) ::OpenRCT2::StartupTimeline::ScopedPhase _startupPhase(name)
+#    define STARTUP_FINISHED() ::OpenRCT2::StartupTimeline::Finish()
+#else
+#    define STARTUP_PHASE(name)
+#    define STARTUP_FINISHED()
+#endif // __ANDROID__
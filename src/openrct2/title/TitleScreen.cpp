@@ -25,6 +25,7 @@
 #include "../localisation/Localisation.h"
 #include "../network/NetworkBase.h"
 #include "../network/network.h"
+#include "../platform/StartupTimeline.h"
 #include "../scenario/Scenario.h"
 #include "../scenario/ScenarioRepository.h"
 #include "../ui/UiContext.h"
@@ -115,6 +116,7 @@ void TitleScreen::SetHideVersionInfo(bool value)
 void TitleScreen::Load()
 {
     log_verbose("TitleScreen::Load()");
+    STARTUP_PHASE("Title screen load");
 
     if (game_is_paused())
     {
@@ -0,0 +1,96 @@
+/*****************************************************************************
+ * Copyright (c) 2014-2021 OpenRCT2 developers
+ *
+ * For a complete list of all authors, please refer to contributors.md
+ * Interested in contributing? Visit https://github.com/OpenRCT2/OpenRCT2
+ *
+ * OpenRCT2 is licensed under the GNU General Public License version 3.
+ *****************************************************************************/
+#include <gtest/gtest.h>
+#include <openrct2/Context.h>
+#include <openrct2/core/FrameLimiter.hpp>
+
+using namespace OpenRCT2;
+
+// Runs the limiter like the game loop does for the given time, returns the number of frames drawn.
+static int RunFrames(FrameLimiter& limiter, float frameTime, float deltaTime, float duration)
+{
+    int frames = 0;
+    for (float time = 0.0f; time < duration; time += deltaTime)
+    {
+        limiter.Update(deltaTime, frameTime);
+        if (limiter.IsFrameDue(frameTime))
+        {
+            frames++;
+        }
+    }
+    return frames;
+}
+
+TEST(FrameLimiterTest, unlimited)
+{
+    FrameLimiter limiter;
+    ASSERT_NEAR(RunFrames(limiter, 0.0f, GAME_UPDATE_TIME_MS, 1.0f), 40, 1);
+}
+
+TEST(FrameLimiterTest, limit_above_tick_rate_time)
+{
+    FrameLimiter limiter;
+    ASSERT_NEAR(RunFrames(limiter, 1.0f / 30.0f, GAME_UPDATE_TIME_MS, 10.0f), 300, 1);
+}
+
+TEST(FrameLimiterTest, limit_at_tick_backlog)
+{
+    // Slightly short ticks must not stop a frame time equal to the tick backlog from being reached
+    FrameLimiter limiter;
+    ASSERT_NEAR(RunFrames(limiter, 1.0f / 10.0f, GAME_UPDATE_TIME_MS * 0.99f, 10.0f), 99, 1);
+}
+
+TEST(FrameLimiterTest, limit_beyond_tick_backlog)
+{
+    FrameLimiter limiter;
+    ASSERT_NEAR(RunFrames(limiter, 1.0f / 5.0f, GAME_UPDATE_TIME_MS, 10.0f), 50, 1);
+}
+
+TEST(FrameLimiterTest, governor_budget_below_10_fps)
+{
+    // Battery saver and thermal throttling scale the limit down to a few frames per second, which must still be drawn
+    const float budgets[][2] = { { 15.0f, 0.25f }, { 30.0f, 0.25f }, { 10.0f, 0.5f }, { 0.0f, 0.1f } };
+    for (const auto& budget : budgets)
+    {
+        const float frameTime = FrameLimiter::GetFrameTime(budget[0], budget[1], GAME_UPDATE_FPS);
+        ASSERT_GT(frameTime, GAME_UPDATE_MAX_THRESHOLD);
+
+        FrameLimiter limiter;
+        const float expected = 10.0f / frameTime;
+        ASSERT_NEAR(RunFrames(limiter, frameTime, GAME_UPDATE_TIME_MS, 10.0f), expected, 1);
+    }
+}
+
+TEST(FrameLimiterTest, governor_budget_without_limit)
+{
+    ASSERT_FLOAT_EQ(FrameLimiter::GetFrameTime(0.0f, 1.0f, GAME_UPDATE_FPS), 0.0f);
+    ASSERT_FLOAT_EQ(FrameLimiter::GetFrameTime(0.0f, 0.5f, GAME_UPDATE_FPS), 1.0f / 20.0f);
+    ASSERT_FLOAT_EQ(FrameLimiter::GetFrameTime(24.0f, 1.0f, GAME_UPDATE_FPS), 1.0f / 24.0f);
+}
+
+TEST(FrameLimiterTest, stall_does_not_burst)
+{
+    FrameLimiter limiter;
+    const float frameTime = 1.0f / 20.0f;
+    limiter.Update(5.0f, frameTime);
+    ASSERT_TRUE(limiter.IsFrameDue(frameTime));
+    ASSERT_TRUE(limiter.IsFrameDue(frameTime));
+    ASSERT_FALSE(limiter.IsFrameDue(frameTime));
+    ASSERT_FLOAT_EQ(limiter.GetTimeUntilFrame(frameTime), frameTime);
+}
+
+TEST(FrameLimiterTest, make_due)
+{
+    FrameLimiter limiter;
+    const float frameTime = 1.0f / 10.0f;
+    ASSERT_FALSE(limiter.IsFrameDue(frameTime));
+    limiter.MakeDue(frameTime);
+    ASSERT_FLOAT_EQ(limiter.GetTimeUntilFrame(frameTime), 0.0f);
+    ASSERT_TRUE(limiter.IsFrameDue(frameTime));
+}